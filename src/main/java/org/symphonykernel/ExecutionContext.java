@@ -83,6 +83,9 @@ public class ExecutionContext {
 
     FlowItem currentFlowItem;
 
+    /** The dispatch priority of the LLM calls made for this context. */
+    Priority priority;
+
     /**
      * Default constructor for ExecutionContext.
      * Initializes the resolved values map.
@@ -106,6 +109,7 @@ public class ExecutionContext {
         	setCurrentFlowItem(ctx.getCurrentFlowItem().copy());
         setUserSession(ctx.getUserSession());
         setModelName(ctx.getModelName());
+        priority = ctx.priority;
     }
 
     /**
@@ -471,6 +475,31 @@ public class ExecutionContext {
         return request != null && "ASYNC_CHAT".equals(request.getKey());
     }
 
+    /**
+     * Returns the dispatch priority of the LLM calls made for this context.
+     * Unless set explicitly, asynchronous requests are {@link Priority#ASYNC} and all
+     * others {@link Priority#INTERACTIVE}.
+     * 
+     * @return the priority
+     */
+    public Priority getPriority() {
+        if (priority != null) {
+            return priority;
+        }
+        return isIsAsync() ? Priority.ASYNC : Priority.INTERACTIVE;
+    }
+
+    /**
+     * Sets the dispatch priority of the LLM calls made for this context.
+     * 
+     * @param priority the priority
+     * @return the updated execution context
+     */
+    public ExecutionContext setPriority(Priority priority) {
+        this.priority = priority;
+        return this;
+    }
+
     /**
      * Checks if the execution context is an asynchronous result.
      * 
@@ -0,0 +1,124 @@
+package org.symphonykernel;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Immutable, parsed form of the JSON definition stored in the data of a plugin or tool
+ * knowledge.
+ * <p>
+ * The definition names the tool class ({@code Tool}), an optional {@code SystemPrompt}
+ * and any other top-level scalar properties, which are kept as flags. It remembers the
+ * knowledge data it was compiled from so a changed knowledge is recompiled.
+ * </p>
+ */
+public final class PluginDefinition {
+
+    private final String name;
+    private final String source;
+    private final String tool;
+    private final String systemPrompt;
+    private final Map<String, String> flags;
+
+    private PluginDefinition(String name, String source, String tool, String systemPrompt, Map<String, String> flags) {
+        this.name = name;
+        this.source = source;
+        this.tool = tool;
+        this.systemPrompt = systemPrompt;
+        this.flags = Collections.unmodifiableMap(flags);
+    }
+
+    /**
+     * Creates a definition from the parsed knowledge data.
+     *
+     * @param name      the knowledge name
+     * @param source    the knowledge data the definition was parsed from
+     * @param paramNode the parsed knowledge data
+     * @return the definition
+     */
+    public static PluginDefinition from(String name, String source, JsonNode paramNode) {
+        String tool = text(paramNode, "Tool");
+        String systemPrompt = text(paramNode, "SystemPrompt");
+        Map<String, String> flags = new LinkedHashMap<>();
+        paramNode.fields().forEachRemaining(e -> {
+            if (e.getValue().isValueNode() && !e.getValue().isNull()
+                    && !"Tool".equals(e.getKey()) && !"SystemPrompt".equals(e.getKey())) {
+                flags.put(e.getKey(), e.getValue().asText());
+            }
+        });
+        return new PluginDefinition(name, source, tool != null ? tool.trim() : null, systemPrompt, flags);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+
+    /**
+     * Checks whether this definition was compiled from the given knowledge data.
+     *
+     * @param data the current knowledge data
+     * @return true if the data is unchanged
+     */
+    public boolean isCompiledFrom(String data) {
+        return source == null ? data == null : source.equals(data);
+    }
+
+    /**
+     * Gets the knowledge name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the fully qualified name of the tool class.
+     *
+     * @return the tool class name, or null if none is configured
+     */
+    public String getTool() {
+        return tool;
+    }
+
+    /**
+     * Checks whether a tool class is configured.
+     *
+     * @return true if {@link #getTool()} is not empty
+     */
+    public boolean hasTool() {
+        return tool != null && !tool.isEmpty();
+    }
+
+    /**
+     * Gets the system prompt of the definition.
+     *
+     * @return the system prompt, or null if none is configured
+     */
+    public String getSystemPrompt() {
+        return systemPrompt;
+    }
+
+    /**
+     * Gets a flag of the definition.
+     *
+     * @param key the property name
+     * @return the value as text, or null if absent
+     */
+    public String getFlag(String key) {
+        return flags.get(key);
+    }
+
+    /**
+     * Gets all flags of the definition.
+     *
+     * @return an unmodifiable map of the other top-level scalar properties
+     */
+    public Map<String, String> getFlags() {
+        return flags;
+    }
+}
@@ -0,0 +1,44 @@
+package org.symphonykernel;
+
+import org.slf4j.MDC;
+import org.symphonykernel.config.Constants;
+
+/**
+ * Enum representing the dispatch priority of LLM calls.
+ * <p>
+ * The priority of the current thread is kept in the MDC next to the trace id, so it is
+ * carried to worker threads the same way. Calls without a priority are interactive.
+ * </p>
+ */
+public enum Priority {
+    /** A user waiting on a chat or streaming response. */
+    INTERACTIVE,
+    /** A request whose result is fetched later. */
+    ASYNC,
+    /** Bulk work fanned out by a request, e.g. chunk and page calls. */
+    BACKGROUND;
+
+    /**
+     * Gets the priority of the current thread.
+     *
+     * @return the priority, {@link #INTERACTIVE} if none is set
+     */
+    public static Priority current() {
+        String value = MDC.get(Constants.LLM_PRIORITY);
+        if (value != null) {
+            try {
+                return Priority.valueOf(value);
+            } catch (IllegalArgumentException e) {
+                // Fall through to the default
+            }
+        }
+        return INTERACTIVE;
+    }
+
+    /**
+     * Sets this priority on the current thread.
+     */
+    public void apply() {
+        MDC.put(Constants.LLM_PRIORITY, name());
+    }
+}
@@ -46,6 +46,30 @@ public class RestRequestTemplate {
     @JsonProperty("ResultSelectors")
     public String resultSelectors;
 
+    /**
+     * Maximum number of retries on transient failures, overrides the global default when set.
+     */
+    @JsonProperty("MaxRetries")
+    public Integer maxRetries;
+
+    /**
+     * Base backoff in milliseconds between retries, overrides the global default when set.
+     */
+    @JsonProperty("RetryBackoffMs")
+    public Long retryBackoffMs;
+
+    /**
+     * Indicates whether a hedged request is sent when the first one is slower than the observed p95.
+     */
+    @JsonProperty("Hedge")
+    public Boolean hedge;
+
+    /**
+     * Marks the request as idempotent (safe to retry or hedge) regardless of the HTTP method.
+     */
+    @JsonProperty("Idempotent")
+    public Boolean idempotent;
+
     /**
      * Default constructor initializing default values.
      */
@@ -175,4 +199,76 @@ public class RestRequestTemplate {
     public void setResultSelectors(String resultSelectors) {
         this.resultSelectors = resultSelectors;
     }
+
+    /**
+     * Gets the maximum number of retries on transient failures.
+     *
+     * @return the maximum number of retries, or null to use the global default
+     */
+    public Integer getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Sets the maximum number of retries on transient failures.
+     *
+     * @param maxRetries the maximum number of retries
+     */
+    public void setMaxRetries(Integer maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Gets the base backoff in milliseconds between retries.
+     *
+     * @return the base backoff, or null to use the global default
+     */
+    public Long getRetryBackoffMs() {
+        return retryBackoffMs;
+    }
+
+    /**
+     * Sets the base backoff in milliseconds between retries.
+     *
+     * @param retryBackoffMs the base backoff in milliseconds
+     */
+    public void setRetryBackoffMs(Long retryBackoffMs) {
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    /**
+     * Checks if hedged requests are enabled.
+     *
+     * @return true if hedging is enabled, or null to use the global default
+     */
+    public Boolean getHedge() {
+        return hedge;
+    }
+
+    /**
+     * Sets whether hedged requests are enabled.
+     *
+     * @param hedge true to enable hedging, false otherwise
+     */
+    public void setHedge(Boolean hedge) {
+        this.hedge = hedge;
+    }
+
+    /**
+     * Checks if the request is explicitly marked as idempotent.
+     *
+     * @return true or false if set, or null to derive it from the HTTP method
+     */
+    public Boolean getIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * Sets whether the request is idempotent.
+     *
+     * @param idempotent true if the request can be safely retried
+     */
+    public void setIdempotent(Boolean idempotent) {
+        this.idempotent = idempotent;
+    }
 }
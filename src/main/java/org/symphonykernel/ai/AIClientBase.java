@@ -6,16 +6,26 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.symphonykernel.LLMRequest;
+import org.symphonykernel.Priority;
 import org.symphonykernel.config.AzureOpenAIConnectionProperties;
 import org.symphonykernel.config.Constants;
 import org.symphonykernel.transformer.JsonTransformer;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 
 
 public abstract class AIClientBase {
@@ -27,29 +37,77 @@ public abstract class AIClientBase {
     private static final String FINAL_FORMATTING = "<!FinalResultFormat!>";
     private static final String CHUNKS = "<!Chunks!>";
     private static final String CHUNK_PROMPT = "<!ChunksPrompt!>";
+    private static final String PARTIAL_REDUCE_PROMPT = "Combine the partial responses into a single coherent response. Keep every fact, figure and item from each response and do not make up any data.";
+    private static final int MAX_REDUCE_LEVELS = 8;
+
+    @Value("${symphony.stream.progress.enabled:false}")
+    private boolean streamProgress;
+    private static final String DEFAULT_CHUNK_PROMPT = "You are provided with a part of the data in each chunk. All chunks follow the same structure and format.Combine data across all chunks until all chunks have been processed and provide a consolidated response based on the combined data from all chunks keeping the original structure and format. Do not make up any data.";
     
    
    JsonTransformer jsonTransformer;
    protected AzureOpenAIConnectionProperties conProperties;
+   protected TokenCounter tokenCounter;
 
-    private static int MAX_PARALLEL_EXECUTIONS = 5; // Configurable limit for parallel executions
+    private int maxParallelExecutions = 5; // Threads fanning out the parts and chunks of one client
     private final ExecutorService executorService;
 
+    /**
+     * Creates a client measuring prompts in characters.
+     *
+     * @param connectionProperties the connection configuration
+     */
     protected AIClientBase(AzureOpenAIConnectionProperties connectionProperties) {
+        this(connectionProperties, null);
+    }
+
+    /**
+     * Creates a client measuring prompts with the shared token counter.
+     *
+     * @param connectionProperties the connection configuration
+     * @param tokenCounter         the token counter, or null to measure prompts in characters
+     */
+    protected AIClientBase(AzureOpenAIConnectionProperties connectionProperties, TokenCounter tokenCounter) {
         conProperties=connectionProperties;
+        this.tokenCounter = tokenCounter;
 
         if (connectionProperties.getMaxInputLength() > 0) {
             maxInputLength = connectionProperties.getMaxInputLength();
         }
 
         if (connectionProperties.getMaxParallel() > 0) {
-            MAX_PARALLEL_EXECUTIONS = connectionProperties.getMaxParallel();
+            maxParallelExecutions = connectionProperties.getMaxParallel();
         }
 
-        executorService = Executors.newFixedThreadPool(MAX_PARALLEL_EXECUTIONS);
+        executorService = Executors.newFixedThreadPool(maxParallelExecutions);
         jsonTransformer = new JsonTransformer();
     }
 
+    /**
+     * Gets the input limit of a model: {@code maxInputTokens} tokens when a tokenizer is
+     * configured for the model, otherwise {@code maxInputLength} characters.
+     *
+     * @param model the model name
+     * @return the input limit in the unit of {@link #measure(String)}
+     */
+    protected int getInputLimit(String model) {
+        return usesTokens(model) ? tokenCounter.getMaxInputTokens(model) : maxInputLength;
+    }
+
+    /**
+     * Gets the function measuring prompts against {@link #getInputLimit(String)}.
+     *
+     * @param model the model name
+     * @return counts tokens when the model has a tokenizer and token limit, otherwise characters
+     */
+    protected ToIntFunction<String> measure(String model) {
+        return usesTokens(model) ? tokenCounter.forModel(model) : String::length;
+    }
+
+    private boolean usesTokens(String model) {
+        return tokenCounter != null && tokenCounter.usesTokens(model);
+    }
+
     public abstract <R> R execute(LLMRequest request);
 
     /**
@@ -104,22 +162,13 @@ public abstract class AIClientBase {
 
     private <R> R getFinalResponse(Object[] tools, String model, String finalFormattingPrompt ,
             List<CompletableFuture<R>> futures, Function<LLMRequest, R> llmFunction) {
-        StringBuilder finalResponse = new StringBuilder();
-        for (CompletableFuture<R> future : futures) {
-            try {
-                R response = future.get();
-                if (response != null) {
-                    finalResponse.append(response).append(System.lineSeparator());
-                }
-            } catch (InterruptedException | ExecutionException e) {
-                logger.error("Error processing part in parallel: {}", e.getMessage(), e);
-            }
-        }
+        List<String> responses = collect(futures);
      
         if(finalFormattingPrompt == null || finalFormattingPrompt.isEmpty())
             finalFormattingPrompt=  "Combine the responses into a single coherent answer: " ;
-        
-        return process(new LLMRequest(finalFormattingPrompt, finalResponse.toString(), tools, model), llmFunction);
+
+        responses = reduceToFit(finalFormattingPrompt, PARTIAL_REDUCE_PROMPT, responses, false, tools, model);
+        return process(new LLMRequest(finalFormattingPrompt, join(responses, false), tools, model), llmFunction);
         
     }
 
@@ -131,6 +180,7 @@ public abstract class AIClientBase {
         for (String part : partList) {          
             futures.add(CompletableFuture.supplyAsync(() -> {
                 MDC.put(Constants.LOGGER_TRACE_ID, traceId);
+                Priority.BACKGROUND.apply();
                 try {
                     return process(new LLMRequest(basePrompt, part, tools, model), llmFunction);
                 } catch (Exception e) {
@@ -168,35 +218,184 @@ public abstract class AIClientBase {
     private String getFormatingPrompt(String header) {
         return extractPrompt(header, FINAL_FORMATTING);
     }
-    private  <R> R process(LLMRequest request,Function<LLMRequest, R> llmFunction) {
+    /**
+     * How a prompt is sent, depending on its size and chunk markers.
+     */
+    private enum Route {
+        DIRECT, CHUNK_SYSTEM_PROMPT, CHUNK_USER_PROMPT, CLEAR_SYSTEM_PROMPT, CLEAR_USER_PROMPT
+    }
+
+    private Route route(LLMRequest request) {
         String systemPrompt = request.getSystemMessage();
         String userPrompt = request.getUserPrompt();
-        Object[] tools = request.getTools();
         String model = request.getModelName();
 
-        
-        int len = systemPrompt.length();
-        int len2 = userPrompt.length();
+        boolean tokens = usesTokens(model);
+        int inputLimit = getInputLimit(model);
+        ToIntFunction<String> measure = measure(model);
 
-        if (maxInputLength > 4000 && (len + len2 > maxInputLength)) {
+        int len = measure.applyAsInt(systemPrompt);
+        int len2 = measure.applyAsInt(userPrompt);
+
+        if ((tokens || maxInputLength > 4000) && (len + len2 > inputLimit)) {
             if (systemPrompt.contains(CHUNKS) && len > len2) {
-                return executeChunks(systemPrompt, userPrompt, tools, true, model,llmFunction);
+                return Route.CHUNK_SYSTEM_PROMPT;
 
             } else if (userPrompt.contains(CHUNKS) && len2 > len) {
-                return executeChunks(userPrompt, systemPrompt, tools, false, model,llmFunction);
+                return Route.CHUNK_USER_PROMPT;
 
             } else {
-                throw new IllegalArgumentException("Data length execeeded " + maxInputLength + " chars limit"); //128000
+                throw new IllegalArgumentException("Data length execeeded " + inputLimit + (tokens ? " tokens" : " chars") + " limit"); //128000
             }
         } else if (systemPrompt.contains(CHUNK_PROMPT)) {
-            return clearChunkPrompt(systemPrompt, userPrompt, tools, true, model,llmFunction);
+            return Route.CLEAR_SYSTEM_PROMPT;
         } else if (userPrompt.contains(CHUNK_PROMPT)) {
-            return clearChunkPrompt(userPrompt, systemPrompt, tools, false, model,llmFunction);
+            return Route.CLEAR_USER_PROMPT;
         } else {
-            return llmFunction.apply(request);
+            return Route.DIRECT;
         }
     }
-    
+
+    private  <R> R process(LLMRequest request,Function<LLMRequest, R> llmFunction) {
+        String systemPrompt = request.getSystemMessage();
+        String userPrompt = request.getUserPrompt();
+        Object[] tools = request.getTools();
+        String model = request.getModelName();
+
+        switch (route(request)) {
+            case CHUNK_SYSTEM_PROMPT:
+                return executeChunks(systemPrompt, userPrompt, tools, true, model,llmFunction);
+            case CHUNK_USER_PROMPT:
+                return executeChunks(userPrompt, systemPrompt, tools, false, model,llmFunction);
+            case CLEAR_SYSTEM_PROMPT:
+                return clearChunkPrompt(systemPrompt, userPrompt, tools, true, model,llmFunction);
+            case CLEAR_USER_PROMPT:
+                return clearChunkPrompt(userPrompt, systemPrompt, tools, false, model,llmFunction);
+            default:
+                return llmFunction.apply(request);
+        }
+    }
+
+    /**
+     * Streams the response to the given LLM request, handling prompt splitting and
+     * chunking like {@link #processPromptString(LLMRequest, Function)}.
+     * <p>
+     * When the prompt is split or chunked, the map calls run concurrently with the
+     * blocking {@code llmFunction} and only the final reduce is streamed with
+     * {@code streamFunction}. When {@code symphony.stream.progress.enabled} is set, a
+     * progress line starting with {@link Constants#STREAM_PROGRESS} is emitted as each map
+     * call completes; consumers keep such lines out of the saved response (see
+     * {@link Constants#isProgress(String)}). The map calls start when the
+     * returned stream is subscribed to and never block the subscribing thread.
+     * </p>
+     *
+     * @param request        the request containing system and user prompts, tools,
+     *                       and model information
+     * @param llmFunction    the function that executes a blocking LLM call
+     * @param streamFunction the function that executes a streaming LLM call
+     * @return the streamed response
+     * @throws IllegalArgumentException if both system and user prompts are empty
+     */
+    protected Flux<String> processPromptStream(LLMRequest request, Function<LLMRequest, String> llmFunction, Function<LLMRequest, Flux<String>> streamFunction) {
+        if (request == null || llmFunction == null || streamFunction == null) {
+            throw new IllegalArgumentException("Request and LLM functions must not be null.");
+        }
+        validatePrompts(request.getSystemMessage(), request.getUserPrompt());
+        if (request.getUserPrompt() == null) {
+            throw new IllegalArgumentException("User prompt must not be null.");
+        }
+        if (!request.getUserPrompt().contains(SPLITTER)) {
+            return processStream(request, llmFunction, streamFunction);
+        }
+        String[] parts = request.getUserPrompt().split(SPLITTER);
+        String header = parts[0];
+        String headerPrompt = getBasePrompt(header);
+        String basePrompt = headerPrompt != null ? headerPrompt : request.getSystemMessage();
+        List<String> partList = List.of(parts).subList(headerPrompt != null ? 1 : 0, parts.length);
+        String formattingPrompt = getFormatingPrompt(header);
+        String finalPrompt = formattingPrompt == null || formattingPrompt.isEmpty()
+                ? "Combine the responses into a single coherent answer: " : formattingPrompt;
+        String traceId = MDC.get(Constants.LOGGER_TRACE_ID);
+        return Mono.fromCallable(() -> {
+            logger.info("Streaming {} prompts in parallel with traceId {}", partList.size(), traceId);
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (String part : partList) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    MDC.put(Constants.LOGGER_TRACE_ID, traceId);
+                    Priority.BACKGROUND.apply();
+                    try {
+                        return process(new LLMRequest(basePrompt, part, request.getTools(), request.getModelName()), llmFunction);
+                    } catch (Exception e) {
+                        logger.error("Error processing part in parallel: {}", e.getMessage(), e);
+                        return null;
+                    } finally {
+                        MDC.clear();
+                    }
+                }, executorService));
+            }
+            return futures;
+        }).subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(futures -> streamReduce(finalPrompt, PARTIAL_REDUCE_PROMPT, false, futures, "prompts",
+                        request.getTools(), request.getModelName(), traceId, llmFunction, streamFunction));
+    }
+
+    private Flux<String> processStream(LLMRequest request, Function<LLMRequest, String> llmFunction, Function<LLMRequest, Flux<String>> streamFunction) {
+        String systemPrompt = request.getSystemMessage();
+        String userPrompt = request.getUserPrompt();
+        Object[] tools = request.getTools();
+        String model = request.getModelName();
+
+        Route route = route(request);
+        switch (route) {
+            case CHUNK_SYSTEM_PROMPT:
+            case CHUNK_USER_PROMPT:
+                boolean isSystemPromptChunk = route == Route.CHUNK_SYSTEM_PROMPT;
+                String traceId = MDC.get(Constants.LOGGER_TRACE_ID);
+                return Mono.fromCallable(() -> {
+                    MDC.put(Constants.LOGGER_TRACE_ID, traceId);
+                    try {
+                        // A null result (chunking failed) completes the stream empty, as execute returns null
+                        return isSystemPromptChunk
+                                ? mapChunks(systemPrompt, userPrompt, tools, true, model, llmFunction)
+                                : mapChunks(userPrompt, systemPrompt, tools, false, model, llmFunction);
+                    } finally {
+                        MDC.clear();
+                    }
+                }).subscribeOn(Schedulers.boundedElastic())
+                        .flatMapMany(mapped -> streamReduce(mapped.reducePrompt, mapped.reducePrompt, true, mapped.futures, "chunks",
+                                tools, model, traceId, llmFunction, streamFunction));
+            case CLEAR_SYSTEM_PROMPT:
+                return clearChunkPrompt(systemPrompt, userPrompt, tools, true, model, streamFunction);
+            case CLEAR_USER_PROMPT:
+                return clearChunkPrompt(userPrompt, systemPrompt, tools, false, model, streamFunction);
+            default:
+                return streamFunction.apply(request);
+        }
+    }
+
+    /**
+     * Emits a progress line per completed map call, then streams the reduce of their
+     * responses.
+     */
+    private Flux<String> streamReduce(String finalPrompt, String groupPrompt, boolean numbered, List<CompletableFuture<String>> futures, String what,
+            Object[] tools, String model, String traceId, Function<LLMRequest, String> llmFunction, Function<LLMRequest, Flux<String>> streamFunction) {
+        AtomicInteger done = new AtomicInteger();
+        Flux<String> progress = !streamProgress ? Flux.empty() : Flux.fromIterable(futures)
+                .flatMap(future -> Mono.fromFuture(future).onErrorResume(e -> Mono.empty())
+                        .then(Mono.fromSupplier(() -> Constants.STREAM_PROGRESS + "Processed " + done.incrementAndGet() + "/" + futures.size() + " " + what + System.lineSeparator())));
+        Flux<String> reduce = Mono.fromCallable(() -> {
+            MDC.put(Constants.LOGGER_TRACE_ID, traceId);
+            try {
+                List<String> responses = reduceToFit(finalPrompt, groupPrompt, collect(futures), numbered, tools, model);
+                return new LLMRequest(finalPrompt, join(responses, numbered), tools, model);
+            } finally {
+                MDC.clear();
+            }
+        }).subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(finalRequest -> processStream(finalRequest, llmFunction, streamFunction));
+        return progress.concatWith(reduce);
+    }
+
     private  <R> R clearChunkPrompt(String chunkedPrompt, String prompt, Object[] tools, boolean isSystemPromptChunk, String model, Function<LLMRequest, R> llmFunction) {
         int startIdx = chunkedPrompt.indexOf(CHUNKS);
         String head = chunkedPrompt.substring(0, chunkedPrompt.indexOf(CHUNK_PROMPT));
@@ -214,7 +413,7 @@ public abstract class AIClientBase {
 			logger.warn("No data found between chunk markers in the prompt.");
 		}
         if (isSystemPromptChunk) {
-            return llmFunction.apply(new LLMRequest(head + System.lineSeparator() + datapart + System.lineSeparator() + tail, prompt, tools, model));
+            return llmFunction.apply(new LLMRequest(head + Constants.PROMPT_CACHE_BREAK + System.lineSeparator() + datapart + System.lineSeparator() + tail, prompt, tools, model));
         } else {
             return llmFunction.apply(new LLMRequest(prompt, head + System.lineSeparator() + datapart + System.lineSeparator() + tail, tools, model));
         }
@@ -222,6 +421,27 @@ public abstract class AIClientBase {
     }
 
     private   <R> R executeChunks(String chunkedPrompt, String prompt, Object[] tools, boolean isSystemPromptChunk, String model,Function<LLMRequest, R> llmFunction) {
+        ChunkMap<R> mapped = mapChunks(chunkedPrompt, prompt, tools, isSystemPromptChunk, model, llmFunction);
+        if (mapped == null) {
+            return null;
+        }
+        return reduceChunks(mapped.reducePrompt, mapped.futures, tools, model);
+    }
+
+    /**
+     * The pending map calls of a chunked prompt and the prompt that reduces their responses.
+     */
+    private static class ChunkMap<R> {
+        private final String reducePrompt;
+        private final List<CompletableFuture<R>> futures;
+
+        ChunkMap(String reducePrompt, List<CompletableFuture<R>> futures) {
+            this.reducePrompt = reducePrompt;
+            this.futures = futures;
+        }
+    }
+
+    private <R> ChunkMap<R> mapChunks(String chunkedPrompt, String prompt, Object[] tools, boolean isSystemPromptChunk, String model, Function<LLMRequest, R> llmFunction) {
         
         int startIdx = chunkedPrompt.indexOf(CHUNKS);
         String chunkPrompt;
@@ -232,7 +452,7 @@ public abstract class AIClientBase {
             chunkPrompt = chunkedPrompt.substring(chunkedPrompt.indexOf(CHUNK_PROMPT)+CHUNK_PROMPT.length(), startIdx);
         } else {
             tempHead = chunkedPrompt.substring(0, startIdx);
-            chunkPrompt = "You are provided with a part of the data in each chunk. All chunks follow the same structure and format.Combine data across all chunks until all chunks have been processed and provide a consolidated response based on the combined data from all chunks keeping the original structure and format. Do not make up any data.";
+            chunkPrompt = DEFAULT_CHUNK_PROMPT;
         }
 
         String remainder = chunkedPrompt.substring(chunkedPrompt.indexOf(CHUNKS) + CHUNKS.length());
@@ -240,15 +460,17 @@ public abstract class AIClientBase {
         String tail = remainder.substring(endIdx+CHUNKS.length());
         String datapart = remainder.substring(0, endIdx).trim();
 
+        ToIntFunction<String> measure = measure(model);
+        int budget = getInputLimit(model) - measure.applyAsInt(tempHead) - measure.applyAsInt(tail) - measure.applyAsInt(prompt);
         List<String> chunks;
         try {
             if(datapart.startsWith(JsonTransformer.JSON) )
             {
-                 chunks = jsonTransformer.chunkJsonArray(datapart.substring(JsonTransformer.JSON.length()), maxInputLength - tempHead.length() - tail.length() - prompt.length());                
+                 chunks = jsonTransformer.chunkJsonArray(datapart.substring(JsonTransformer.JSON.length()), budget, measure);                
                  head=tempHead;
             }
             else if(datapart.startsWith(JsonTransformer.LLM_OPTIMIZED_DATA)) {
-                chunks = jsonTransformer.chunkCompressedJsonArray(datapart.substring(JsonTransformer.LLM_OPTIMIZED_DATA.length()), maxInputLength - tempHead.length() - tail.length() - prompt.length());                
+                chunks = jsonTransformer.chunkCompressedJsonArray(datapart.substring(JsonTransformer.LLM_OPTIMIZED_DATA.length()), budget, measure);                
                 if(chunks!=null && !chunks.isEmpty()&&chunks.size()>1) {
                  head= tempHead + "\n" +chunks.get(0);
                  chunks.remove(0);
@@ -258,7 +480,7 @@ public abstract class AIClientBase {
             }
             else
             {
-                chunks = jsonTransformer.chunkJsonArray(datapart, maxInputLength - tempHead.length() - tail.length() - prompt.length());
+                chunks = jsonTransformer.chunkJsonArray(datapart, budget, measure);
                 head=tempHead;
             }
            
@@ -272,50 +494,203 @@ public abstract class AIClientBase {
         logger.info("Processing {} chunks in parallel with traceId {}", chunks.size(), traceId);
        
         for (String part : chunks) {
+            logger.info("Processing chunks on {}", isSystemPromptChunk ? "system prompt" : "user prompt");
+            if (isSystemPromptChunk) {
+                futures.add(submitChunk(head + System.lineSeparator() + part + System.lineSeparator() + tail, prompt, tools, model, traceId, llmFunction));
+            } else {
+                futures.add(submitChunk(prompt, head + System.lineSeparator() + part + System.lineSeparator() + tail, tools, model, traceId, llmFunction));
+            }
+        }
+        return new ChunkMap<>(chunkPrompt, futures);
+    }
 
-            futures.add(CompletableFuture.supplyAsync(() -> {
-                MDC.put(Constants.LOGGER_TRACE_ID, traceId);
-                try {
-                    R result;
-                    logger.info("Processing chunks on {}", isSystemPromptChunk ? "system prompt" : "user prompt");
-                    String systemprompt;
-                    String userprompt;
-                    if (isSystemPromptChunk) {   
-                        systemprompt= head + System.lineSeparator() + part + System.lineSeparator() + tail;
-                        userprompt= prompt;                     
-                    } else {
-                        systemprompt= prompt;
-                        userprompt= head + System.lineSeparator() + part + System.lineSeparator() + tail;
-                    }
-                    
-                    result= llmFunction.apply(new LLMRequest(systemprompt, userprompt, tools, model));
-                    logger.info("Processed systemprompt \n{}\n userprompt \n{}\n  Result \n{}", systemprompt, userprompt, result);
-                    return result;
+    /**
+     * Runs the chunk map-reduce over chunks pushed by {@code producer} while it is still
+     * producing them, so large documents are never assembled into one prompt. Each chunk
+     * is sent as the user prompt with the request's system message. At most twice the
+     * parallel limit of chunks are in flight; the producer blocks beyond that. A single
+     * chunk is sent as a regular request without the reduce step.
+     *
+     * @param <R>         the type of the result returned by the LLM function
+     * @param request     the request whose system message applies to every chunk; its user
+     *                    prompt is used when the producer emits nothing
+     * @param producer    pushes the chunks to the consumer it is given
+     * @param llmFunction the function that actually executes the LLM call
+     * @return the reduced result
+     */
+    protected <R> R executeChunkStream(LLMRequest request, Consumer<Consumer<String>> producer, Function<LLMRequest, R> llmFunction) {
+        String systemPrompt = request.getSystemMessage();
+        Object[] tools = request.getTools();
+        String model = request.getModelName();
+        String traceId = MDC.get(Constants.LOGGER_TRACE_ID);
+        Semaphore inFlight = new Semaphore(maxParallelExecutions * 2);
+        List<CompletableFuture<R>> futures = new ArrayList<>();
+        List<String> pending = new ArrayList<>(1);
+        Consumer<String> submit = chunk -> {
+            inFlight.acquireUninterruptibly();
+            futures.add(submitChunk(systemPrompt, chunk, tools, model, traceId, llmFunction)
+                    .whenComplete((result, error) -> inFlight.release()));
+        };
+        producer.accept(chunk -> {
+            // Hold the first chunk back until we know the input does not fit in one request
+            if (futures.isEmpty() && pending.isEmpty()) {
+                pending.add(chunk);
+                return;
+            }
+            if (!pending.isEmpty()) {
+                submit.accept(pending.remove(0));
+            }
+            submit.accept(chunk);
+        });
+        if (futures.isEmpty()) {
+            String userPrompt = pending.isEmpty() ? request.getUserPrompt() : pending.get(0);
+            return process(new LLMRequest(systemPrompt, userPrompt, tools, model), llmFunction);
+        }
+        logger.info("Streamed {} chunks in parallel with traceId {}", futures.size(), traceId);
+        String chunkPrompt = DEFAULT_CHUNK_PROMPT + System.lineSeparator() + "Instructions applied to each chunk:" + System.lineSeparator() + systemPrompt;
+        return reduceChunks(chunkPrompt, futures, tools, model);
+    }
 
-                } catch (Exception e) {
-                    logger.error("Error processing part in parallel: {}", e.getMessage(), e);
-                    return null;
-                } finally {
-                    MDC.clear();
-                }
-            }, executorService));
+    private <R> CompletableFuture<R> submitChunk(String systemprompt, String userprompt, Object[] tools, String model, String traceId, Function<LLMRequest, R> llmFunction) {
+        return CompletableFuture.supplyAsync(() -> {
+            MDC.put(Constants.LOGGER_TRACE_ID, traceId);
+            // Fanned-out chunk calls yield to interactive requests
+            Priority.BACKGROUND.apply();
+            try {
+                R result = llmFunction.apply(new LLMRequest(systemprompt, userprompt, tools, model));
+                logger.info("Processed systemprompt \n{}\n userprompt \n{}\n  Result \n{}", systemprompt, userprompt, result);
+                return result;
 
-        }
+            } catch (Exception e) {
+                logger.error("Error processing part in parallel: {}", e.getMessage(), e);
+                return null;
+            } finally {
+                MDC.clear();
+            }
+        }, executorService);
+    }
+
+    private <R> R reduceChunks(String chunkPrompt, List<CompletableFuture<R>> futures, Object[] tools, String model) {
+        List<String> responses = reduceToFit(chunkPrompt, chunkPrompt, collect(futures), true, tools, model);
+        return execute(new LLMRequest(chunkPrompt, join(responses, true), tools, model));
+    }
+
+    private <R> List<String> collect(List<CompletableFuture<R>> futures) {
         CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        int c = 1;
-        StringBuilder finalResponse = new StringBuilder();
+        List<String> responses = new ArrayList<>();
+        int failed = 0;
         for (CompletableFuture<R> future : futures) {
             try {
                 R response = future.get();
                 if (response != null) {
-                    finalResponse.append("CHUNK ").append(c++).append(System.lineSeparator()).append(response).append(System.lineSeparator());
+                    responses.add(response.toString());
+                } else {
+                    failed++;
                 }
             } catch (InterruptedException | ExecutionException e) {
+                failed++;
                 logger.error("Error processing part in parallel: {}", e.getMessage(), e);
             }
         }
+        if (failed > 0) {
+            logger.warn("{} of {} parallel calls returned no response; their data is missing from the combined answer", failed, futures.size());
+        }
+        return responses;
+    }
 
-        return execute(new LLMRequest(chunkPrompt, finalResponse.toString(), tools, model));
+    private static String join(List<String> responses, boolean numbered) {
+        StringBuilder sb = new StringBuilder();
+        int c = 1;
+        for (String response : responses) {
+            if (numbered) {
+                sb.append("CHUNK ").append(c++).append(System.lineSeparator());
+            }
+            sb.append(response).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Combines partial responses in groups until they fit, together with the final prompt,
+     * in one request. Each level packs consecutive responses into groups within the input
+     * limit of the model and reduces the groups in parallel with {@code groupPrompt}, so
+     * the final reduce never exceeds the limit however many chunks were mapped. A group
+     * whose reduce fails keeps its responses for the next level.
+     *
+     * @param finalPrompt the system prompt of the final reduce
+     * @param groupPrompt the system prompt of the intermediate reduces
+     * @param responses   the partial responses, in order
+     * @param numbered    whether responses are labelled as chunks when joined
+     * @param tools       the tools of the request
+     * @param model       the model name
+     * @return responses that fit in the final reduce
+     * @throws IllegalStateException if the responses still do not fit after
+     *                               {@value #MAX_REDUCE_LEVELS} levels or a level could not
+     *                               shrink them
+     */
+    List<String> reduceToFit(String finalPrompt, String groupPrompt, List<String> responses, boolean numbered, Object[] tools, String model) {
+        ToIntFunction<String> measure = measure(model);
+        int limit = getInputLimit(model);
+        String traceId = MDC.get(Constants.LOGGER_TRACE_ID);
+        int level = 0;
+        while (measure.applyAsInt(finalPrompt) + measure.applyAsInt(join(responses, numbered)) > limit) {
+            if (++level > MAX_REDUCE_LEVELS) {
+                throw new IllegalStateException("Partial responses do not fit in " + limit + " after " + MAX_REDUCE_LEVELS
+                        + " reduce levels (" + responses.size() + " responses left)");
+            }
+            List<List<String>> groups = group(responses, limit - measure.applyAsInt(groupPrompt), numbered, measure);
+            if (groups.size() == responses.size()) {
+                throw new IllegalStateException("Partial responses do not fit in " + limit
+                        + " and no two of them fit together in one reduce (" + responses.size() + " responses left)");
+            }
+            logger.info("Reducing {} partial responses in {} groups (level {}) with traceId {}", responses.size(), groups.size(), level, traceId);
+            List<CompletableFuture<List<String>>> futures = new ArrayList<>();
+            for (List<String> group : groups) {
+                if (group.size() == 1) {
+                    futures.add(CompletableFuture.completedFuture(group));
+                } else {
+                    // A failed reduce keeps the group's responses rather than dropping their data
+                    futures.add(submitChunk(groupPrompt, join(group, numbered), tools, model, traceId, this::<String>execute)
+                            .thenApply(reduced -> reduced != null ? List.of(reduced) : group));
+                }
+            }
+            List<String> reduced = new ArrayList<>();
+            for (CompletableFuture<List<String>> future : futures) {
+                reduced.addAll(future.join());
+            }
+            if (reduced.size() == responses.size()) {
+                throw new IllegalStateException("Partial responses do not fit in " + limit
+                        + " and every group reduce failed at level " + level + " (" + responses.size() + " responses left)");
+            }
+            responses = reduced;
+        }
+        return responses;
+    }
+
+    /**
+     * Packs consecutive responses into groups within {@code budget}. A response that does
+     * not fit together with its neighbour stays in a group of its own, so a group reduce
+     * is never sent over the limit.
+     */
+    static List<List<String>> group(List<String> responses, int budget, boolean numbered, ToIntFunction<String> measure) {
+        List<List<String>> groups = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int separatorSize = measure.applyAsInt((numbered ? "CHUNK " + responses.size() : "") + System.lineSeparator() + System.lineSeparator());
+        int size = 0;
+        for (String response : responses) {
+            int responseSize = measure.applyAsInt(response) + separatorSize;
+            if (!current.isEmpty() && size + responseSize > budget) {
+                groups.add(current);
+                current = new ArrayList<>();
+                size = 0;
+            }
+            current.add(response);
+            size += responseSize;
+        }
+        if (!current.isEmpty()) {
+            groups.add(current);
+        }
+        return groups;
     }
 
 }
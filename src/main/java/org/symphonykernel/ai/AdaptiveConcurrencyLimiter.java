@@ -0,0 +1,381 @@
+package org.symphonykernel.ai;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.web.client.RestClientResponseException;
+import org.symphonykernel.Priority;
+
+import com.azure.core.exception.HttpResponseException;
+
+/**
+ * AIMD concurrency limit for the calls to one model deployment.
+ * <p>
+ * The limit grows by one call per limit's worth of successful calls and is cut
+ * multiplicatively when the deployment throttles (HTTP 429) or when a call's latency
+ * sample is markedly longer than the recent baseline. Only calls whose latency says
+ * something about the deployment report a sample, such as the time to first token of a
+ * stream; the total time of a blocking call grows with the completion length and the tool
+ * rounds it runs and is not used. Only calls admitted after the last decrease can decrease
+ * the limit again, so a burst of throttled calls that were already in flight only counts
+ * once.
+ * Callers above the limit wait in {@link #acquire(Priority, long)} and are admitted by
+ * priority, then arrival (see {@link DispatchQueue}). A call waiting on something other
+ * than the deployment, such as its tools, gives its slot back with
+ * {@link Permit#suspend()} and takes a new one with {@link Permit#resume()}.
+ * </p>
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    /** Spring AI reports HTTP errors as {@code "<status> - <body>"}. */
+    private static final Pattern AI_EXCEPTION_STATUS = Pattern.compile("^(\\d{3}) - ");
+
+    /**
+     * A slot taken by one call; completing it releases the slot and feeds the limit.
+     * Only the first completion counts.
+     */
+    public class Permit {
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final Priority priority;
+        private final long timeoutMs;
+        private boolean suspended;
+        private long admission;
+
+        private Permit(Priority priority, long timeoutMs, long admission) {
+            this.priority = priority;
+            this.timeoutMs = timeoutMs;
+            this.admission = admission;
+        }
+
+        /**
+         * Gets the time since the permit was taken.
+         *
+         * @return the elapsed time in milliseconds
+         */
+        public long elapsedMs() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+
+        /**
+         * Records a successful call whose latency reflects the load of the deployment.
+         *
+         * @param latencyMs the latency of the call
+         */
+        public void success(long latencyMs) {
+            if (done.compareAndSet(false, true)) {
+                onSuccess(this, latencyMs);
+            }
+        }
+
+        /**
+         * Records a successful call without a latency sample.
+         */
+        public void success() {
+            success(-1);
+        }
+
+        /**
+         * Records a failed call, backing off if the deployment throttled it.
+         *
+         * @param error the failure
+         */
+        public void failure(Throwable error) {
+            if (done.compareAndSet(false, true)) {
+                onFailure(this, error);
+            }
+        }
+
+        /**
+         * Releases the slot without feeding the limit, e.g. when the call was cancelled.
+         */
+        public void release() {
+            if (done.compareAndSet(false, true)) {
+                releaseSlot(this);
+            }
+        }
+
+        /**
+         * Gives the slot back while the call waits on something other than the deployment.
+         */
+        public void suspend() {
+            lock.lock();
+            try {
+                if (!done.get() && !suspended) {
+                    suspended = true;
+                    inFlight--;
+                    available.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Takes a slot again after {@link #suspend()}, waiting in line like a new call of
+         * the same priority.
+         *
+         * @throws IllegalStateException if no slot became available in time or the thread was interrupted
+         */
+        public void resume() {
+            lock.lock();
+            try {
+                if (!done.get() && suspended) {
+                    awaitSlot(priority, timeoutMs);
+                    suspended = false;
+                    inFlight++;
+                    admission = ++admissions;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double throttleBackoff;
+    private final double latencyBackoff;
+    private final double latencyTolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final DispatchQueue queue;
+    private double limit;
+    private int inFlight;
+    private double baselineLatencyMs;
+    private long admissions;
+    private long lastDecreaseAdmission;
+
+    /**
+     * Creates a limiter.
+     *
+     * @param name             the deployment name, for logging
+     * @param initialLimit     the starting limit
+     * @param minLimit         the lowest limit
+     * @param maxLimit         the highest limit
+     * @param throttleBackoff  the factor applied to the limit when a call is throttled
+     * @param latencyBackoff   the factor applied to the limit when latency rises
+     * @param latencyTolerance how many times the baseline latency counts as rising latency
+     * @param agingMs          how long a waiter waits before it moves up one priority class
+     */
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+            double throttleBackoff, double latencyBackoff, double latencyTolerance, long agingMs) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.throttleBackoff = throttleBackoff;
+        this.latencyBackoff = latencyBackoff;
+        this.latencyTolerance = latencyTolerance;
+        this.queue = new DispatchQueue(agingMs);
+    }
+
+    /**
+     * Waits for a slot under the current limit.
+     *
+     * @param priority  the priority of the call
+     * @param timeoutMs how long to wait
+     * @return the permit of the call
+     * @throws IllegalStateException if no slot became available in time or the thread was interrupted
+     */
+    public Permit acquire(Priority priority, long timeoutMs) {
+        lock.lock();
+        try {
+            awaitSlot(priority, timeoutMs);
+            inFlight++;
+            return new Permit(priority, timeoutMs, ++admissions);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitSlot(Priority priority, long timeoutMs) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        DispatchQueue.Ticket ticket = queue.enqueue(priority);
+        boolean wasNext = false;
+        try {
+            while (true) {
+                boolean next = queue.isNext(ticket);
+                if (next && inFlight < (int) limit) {
+                    break;
+                }
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Timed out after " + timeoutMs + " ms waiting for a slot on deployment " + name
+                            + " (limit " + (int) limit + ", queued " + queue.size() + ")");
+                }
+                if (wasNext && !next) {
+                    // An aged waiter overtook us; wake it rather than leave it asleep
+                    available.signalAll();
+                }
+                wasNext = next;
+                long slice = next ? remaining : queue.maxWaitNanos(remaining);
+                remaining -= slice - available.awaitNanos(slice);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a slot on deployment " + name, e);
+        } finally {
+            queue.remove(ticket);
+            // Let the next waiter check whether it is now first in line
+            available.signalAll();
+        }
+    }
+
+    private void onSuccess(Permit permit, long latencyMs) {
+        lock.lock();
+        try {
+            if (latencyMs >= 0) {
+                if (baselineLatencyMs == 0 || latencyMs < baselineLatencyMs) {
+                    baselineLatencyMs = latencyMs;
+                } else {
+                    // Let the baseline follow slowly so a lasting change in prompt sizes is not read as congestion
+                    baselineLatencyMs = baselineLatencyMs * 0.95 + latencyMs * 0.05;
+                }
+            }
+            if (latencyMs >= 0 && latencyMs > baselineLatencyMs * latencyTolerance) {
+                decrease(permit, latencyBackoff, "latency " + latencyMs + " ms");
+            } else if (limit < maxLimit) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            releaseSlot(permit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onFailure(Permit permit, Throwable error) {
+        lock.lock();
+        try {
+            if (isThrottled(error)) {
+                decrease(permit, throttleBackoff, "throttled");
+            }
+            releaseSlot(permit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease(Permit permit, double factor, String reason) {
+        if (permit.admission <= lastDecreaseAdmission) {
+            // Admitted before the last decrease: part of the burst that already counted
+            return;
+        }
+        lastDecreaseAdmission = admissions;
+        double previous = limit;
+        limit = Math.max(minLimit, limit * factor);
+        logger.info("Deployment {} {}: concurrency limit {} -> {}", name, reason, (int) previous, (int) limit);
+    }
+
+    private void releaseSlot(Permit permit) {
+        lock.lock();
+        try {
+            if (permit.suspended) {
+                // The slot was already given back
+                return;
+            }
+            inFlight--;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether a failure was caused by the deployment throttling the call.
+     *
+     * @param error the failure
+     * @return true if an HTTP 429 is found in the cause chain
+     */
+    static boolean isThrottled(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (statusCode(t) == 429) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the HTTP status code of a failed provider call. Only exceptions that carry the
+     * response status are read; other messages mentioning a number are not.
+     *
+     * @param error the failure, not its causes
+     * @return the status code, or -1 if the failure is not an HTTP error response
+     */
+    static int statusCode(Throwable error) {
+        if (error instanceof HttpResponseException e) {
+            return e.getResponse() != null ? e.getResponse().getStatusCode() : -1;
+        }
+        if (error instanceof RestClientResponseException e) {
+            return e.getStatusCode().value();
+        }
+        if ((error instanceof TransientAiException || error instanceof NonTransientAiException) && error.getMessage() != null) {
+            Matcher matcher = AI_EXCEPTION_STATUS.matcher(error.getMessage());
+            return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the deployment name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the current concurrency limit.
+     *
+     * @return the number of calls allowed at once
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of calls in progress.
+     *
+     * @return the calls holding a permit
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of calls waiting for a slot.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package org.symphonykernel.ai;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.symphonykernel.Priority;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Holds one {@link AdaptiveConcurrencyLimiter} per model deployment and runs LLM calls
+ * through it.
+ * <p>
+ * Every blocking and streaming call of the AI client goes through {@link #call} or
+ * {@link #stream}, whichever thread it is made from. Limits start at
+ * {@code symphony.llm.limit.initial} and move between {@code symphony.llm.limit.min} and
+ * {@code symphony.llm.limit.max}; a throttled call multiplies the limit by
+ * {@code symphony.llm.limit.throttle.backoff}, a call slower than
+ * {@code symphony.llm.limit.latency.tolerance} times the baseline by
+ * {@code symphony.llm.limit.latency.backoff}. Waiting calls are admitted by the
+ * {@link Priority} of the calling thread, moving up one class every
+ * {@code symphony.llm.priority.aging.ms}. A call that runs tools exposes its
+ * {@link Slot} in the tool context under {@link #PERMIT_CONTEXT_KEY}, so the tool calling
+ * manager can give the slot back while the tools run and a tool calling the same
+ * deployment does not wait on its caller. The limit, in-flight calls and queue depth of
+ * each deployment are published as {@code symphony.llm.limit}, {@code symphony.llm.inflight}
+ * and {@code symphony.llm.queued} gauges when a meter registry is available.
+ * </p>
+ */
+@Component
+public class ConcurrencyLimiterRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimiterRegistry.class);
+
+    /**
+     * Tool context key of the {@link Slot} of the call running the tools.
+     */
+    public static final String PERMIT_CONTEXT_KEY = "symphony.llm.permit";
+
+    /**
+     * The permit of one call, set once the call has a slot. It is handed to the tool
+     * calling manager through the tool context, which may run the tools on another thread.
+     */
+    public static class Slot {
+        private volatile AdaptiveConcurrencyLimiter.Permit permit;
+
+        /**
+         * Gives the slot back while the tools of the call run.
+         */
+        public void suspend() {
+            AdaptiveConcurrencyLimiter.Permit current = permit;
+            if (current != null) {
+                current.suspend();
+            }
+        }
+
+        /**
+         * Takes a slot again once the tools of the call have run.
+         */
+        public void resume() {
+            AdaptiveConcurrencyLimiter.Permit current = permit;
+            if (current != null) {
+                current.resume();
+            }
+        }
+    }
+
+    @Value("${symphony.llm.limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${symphony.llm.limit.initial:8}")
+    private int initialLimit;
+
+    @Value("${symphony.llm.limit.min:1}")
+    private int minLimit;
+
+    @Value("${symphony.llm.limit.max:64}")
+    private int maxLimit;
+
+    @Value("${symphony.llm.limit.throttle.backoff:0.5}")
+    private double throttleBackoff;
+
+    @Value("${symphony.llm.limit.latency.backoff:0.9}")
+    private double latencyBackoff;
+
+    @Value("${symphony.llm.limit.latency.tolerance:4.0}")
+    private double latencyTolerance;
+
+    @Value("${symphony.llm.limit.acquire.timeout.ms:120000}")
+    private long acquireTimeoutMs;
+
+    @Value("${symphony.llm.priority.aging.ms:5000}")
+    private long agingMs;
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the registry.
+     *
+     * @param meterRegistryProvider the meter registry, optional
+     */
+    public ConcurrencyLimiterRegistry(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    /**
+     * Gets the limiter of a deployment, creating it on first use.
+     *
+     * @param deployment the deployment name
+     * @return the limiter
+     */
+    public AdaptiveConcurrencyLimiter get(String deployment) {
+        String key = deployment == null ? "default" : deployment;
+        return limiters.computeIfAbsent(key, this::create);
+    }
+
+    /**
+     * Gets the limiters created so far.
+     *
+     * @return the limiters, one per deployment
+     */
+    public Collection<AdaptiveConcurrencyLimiter> getLimiters() {
+        return Collections.unmodifiableCollection(limiters.values());
+    }
+
+    /**
+     * Runs a blocking LLM call under the limit of its deployment. Its total time depends on
+     * the completion length and the tool rounds it runs, so it does not feed the latency
+     * baseline.
+     *
+     * @param <T>        the result type
+     * @param deployment the deployment name
+     * @param slot       receives the permit of the call, may be null
+     * @param call       the call
+     * @return the result of the call
+     */
+    public <T> T call(String deployment, Slot slot, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        AdaptiveConcurrencyLimiter.Permit permit = get(deployment).acquire(Priority.current(), acquireTimeoutMs);
+        if (slot != null) {
+            slot.permit = permit;
+        }
+        try {
+            T result = call.get();
+            permit.success();
+            return result;
+        } catch (RuntimeException e) {
+            permit.failure(e);
+            throw e;
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * Runs a streaming LLM call under the limit of its deployment. The slot is taken on
+     * subscription, on a bounded elastic thread, and held until the stream terminates or
+     * is cancelled; the latency fed to the limit is the time to the first token.
+     *
+     * @param <T>        the element type
+     * @param deployment the deployment name
+     * @param priority   the priority of the call, captured where the stream was assembled
+     * @param slot       receives the permit of the call, may be null
+     * @param call       starts the call
+     * @return the stream of the call
+     */
+    public <T> Flux<T> stream(String deployment, Priority priority, Slot slot, Supplier<Flux<T>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        return Flux.defer(() -> {
+            AdaptiveConcurrencyLimiter.Permit permit = get(deployment).acquire(priority, acquireTimeoutMs);
+            if (slot != null) {
+                slot.permit = permit;
+            }
+            long[] firstTokenMs = { -1 };
+            Flux<T> flux;
+            try {
+                flux = call.get();
+            } catch (RuntimeException e) {
+                permit.failure(e);
+                throw e;
+            }
+            return flux
+                    .doOnNext(token -> {
+                        if (firstTokenMs[0] < 0) {
+                            firstTokenMs[0] = permit.elapsedMs();
+                        }
+                    })
+                    .doOnComplete(() -> permit.success(firstTokenMs[0] < 0 ? permit.elapsedMs() : firstTokenMs[0]))
+                    .doOnError(permit::failure)
+                    .doFinally(signal -> permit.release());
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private AdaptiveConcurrencyLimiter create(String deployment) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(deployment, initialLimit, minLimit, maxLimit,
+                throttleBackoff, latencyBackoff, latencyTolerance, agingMs);
+        meterRegistryProvider.ifAvailable(registry -> {
+            Gauge.builder("symphony.llm.limit", limiter, AdaptiveConcurrencyLimiter::getLimit).tag("deployment", deployment).register(registry);
+            Gauge.builder("symphony.llm.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight).tag("deployment", deployment).register(registry);
+            Gauge.builder("symphony.llm.queued", limiter, AdaptiveConcurrencyLimiter::getQueueDepth).tag("deployment", deployment).register(registry);
+        });
+        logger.info("Concurrency limiter for deployment {} starting at {} (min {}, max {})", deployment, initialLimit, minLimit, maxLimit);
+        return limiter;
+    }
+}
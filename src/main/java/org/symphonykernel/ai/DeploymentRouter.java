@@ -0,0 +1,379 @@
+package org.symphonykernel.ai;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.symphonykernel.config.AzureOpenAIConnectionProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+
+/**
+ * Spreads the calls of a model alias over a weighted pool of deployments.
+ * <p>
+ * An alias with {@code client.azureopenai.{alias}.options.deployments} (see
+ * {@link AzureOpenAIConnectionProperties#getDeployments(String)}) is served by the listed
+ * deployments, which may sit in different regions or providers; any other model name is
+ * called as is. Each call goes to the better of two deployments drawn by weight: with
+ * {@code symphony.llm.routing.strategy=least-outstanding} (the default) the one with fewer
+ * calls in progress per unit of weight, with {@code latency} the one whose outstanding
+ * calls times recent latency is lower. A deployment that is throttled (HTTP 429), fails
+ * with a 5xx or cannot be reached is taken out of the pool for
+ * {@code symphony.llm.routing.cooldown.ms}, doubling on consecutive failures, and the call
+ * fails over to the next deployment. Health is checked passively from the outcome of real
+ * calls rather than by probes, which would spend quota. When every deployment is out the
+ * one that comes back first is used. Outstanding calls and health of each deployment are
+ * published as {@code symphony.llm.pool.outstanding} and {@code symphony.llm.pool.healthy}
+ * gauges when a meter registry is available.
+ * </p>
+ */
+@Component
+public class DeploymentRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeploymentRouter.class);
+
+    private static final long MAX_COOLDOWN_MS = TimeUnit.MINUTES.toMillis(5);
+
+    @Value("${symphony.llm.routing.strategy:least-outstanding}")
+    private String strategy;
+
+    @Value("${symphony.llm.routing.cooldown.ms:30000}")
+    private long cooldownMs;
+
+    private final AzureOpenAIConnectionProperties conProperties;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final Map<String, Optional<Pool>> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the router.
+     *
+     * @param connectionProperties  the connection properties holding the pools
+     * @param meterRegistryProvider the meter registry, optional
+     */
+    public DeploymentRouter(AzureOpenAIConnectionProperties connectionProperties, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.conProperties = connectionProperties;
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    /**
+     * Checks whether a model name is an alias for a pool of deployments.
+     *
+     * @param modelName the model name
+     * @return true if calls to the model are spread over several deployments
+     */
+    public boolean isPool(String modelName) {
+        return getPool(modelName) != null;
+    }
+
+    /**
+     * Gets the deployments a model name is served by.
+     *
+     * @param modelName the model name
+     * @return the deployments of the pool, or the model name itself
+     */
+    public List<String> getDeployments(String modelName) {
+        Pool pool = getPool(modelName);
+        if (pool == null) {
+            return Collections.singletonList(modelName);
+        }
+        return pool.members.stream().map(member -> member.name).toList();
+    }
+
+    /**
+     * Drops the pools built so far, so they are rebuilt from the current configuration.
+     */
+    public void refresh() {
+        pools.clear();
+    }
+
+    /**
+     * Runs a blocking call on a deployment of the model, failing over to the other
+     * deployments of its pool when one is throttled or unavailable.
+     *
+     * @param <T>       the result type
+     * @param modelName the model name or alias
+     * @param call      calls the given deployment
+     * @return the result of the call
+     */
+    public <T> T call(String modelName, Function<String, T> call) {
+        Pool pool = getPool(modelName);
+        if (pool == null) {
+            return call.apply(modelName);
+        }
+        Set<Member> tried = new HashSet<>();
+        RuntimeException lastError = null;
+        Member member;
+        while ((member = pool.choose(tried)) != null) {
+            tried.add(member);
+            long start = member.start();
+            try {
+                T result = call.apply(member.name);
+                member.succeeded(start);
+                return result;
+            } catch (RuntimeException e) {
+                if (!isFailover(e)) {
+                    throw e;
+                }
+                member.failed(e);
+                lastError = e;
+            } finally {
+                member.finished();
+            }
+        }
+        throw lastError != null ? lastError : new IllegalStateException("No deployment available for " + modelName);
+    }
+
+    /**
+     * Runs a streaming call on a deployment of the model. The call fails over to another
+     * deployment only until the first element arrives, since a partial answer cannot be
+     * taken back.
+     *
+     * @param <T>       the element type
+     * @param modelName the model name or alias
+     * @param call      starts the call on the given deployment
+     * @return the stream of the call
+     */
+    public <T> Flux<T> stream(String modelName, Function<String, Flux<T>> call) {
+        Pool pool = getPool(modelName);
+        if (pool == null) {
+            return call.apply(modelName);
+        }
+        return Flux.defer(() -> stream(modelName, pool, call, new HashSet<>()));
+    }
+
+    private <T> Flux<T> stream(String modelName, Pool pool, Function<String, Flux<T>> call, Set<Member> tried) {
+        Member member = pool.choose(tried);
+        if (member == null) {
+            return Flux.error(new IllegalStateException("No deployment available for " + modelName));
+        }
+        tried.add(member);
+        long start = member.start();
+        boolean[] started = { false };
+        return call.apply(member.name)
+                .doOnNext(token -> {
+                    if (!started[0]) {
+                        started[0] = true;
+                        member.succeeded(start);
+                    }
+                })
+                .doOnComplete(() -> {
+                    if (!started[0]) {
+                        member.succeeded(start);
+                    }
+                })
+                .doFinally(signal -> member.finished())
+                .onErrorResume(e -> {
+                    if (started[0] || !isFailover(e)) {
+                        return Flux.error(e);
+                    }
+                    member.failed(e);
+                    if (tried.size() >= pool.members.size()) {
+                        return Flux.error(e);
+                    }
+                    return stream(modelName, pool, call, tried);
+                });
+    }
+
+    private Pool getPool(String modelName) {
+        if (modelName == null || modelName.isBlank()) {
+            return null;
+        }
+        return pools.computeIfAbsent(modelName, name -> Optional.ofNullable(createPool(name))).orElse(null);
+    }
+
+    private Pool createPool(String alias) {
+        String deployments = conProperties.getDeployments(alias);
+        if (deployments == null || deployments.isBlank()) {
+            return null;
+        }
+        List<Member> members = new ArrayList<>();
+        for (String entry : deployments.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts[0].isBlank()) {
+                continue;
+            }
+            double weight = 1;
+            if (parts.length > 1) {
+                try {
+                    weight = Double.parseDouble(parts[1].trim());
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid weight '{}' for deployment {} of {}, using 1", parts[1], parts[0], alias);
+                }
+            }
+            if (weight > 0) {
+                members.add(new Member(parts[0].trim(), weight));
+            }
+        }
+        if (members.isEmpty()) {
+            logger.warn("No deployments configured for {}: {}", alias, deployments);
+            return null;
+        }
+        Pool pool = new Pool(alias, members, "latency".equalsIgnoreCase(strategy));
+        meterRegistryProvider.ifAvailable(registry -> {
+            for (Member member : members) {
+                Gauge.builder("symphony.llm.pool.outstanding", member, m -> m.outstanding.get())
+                        .tag("pool", alias).tag("deployment", member.name).register(registry);
+                Gauge.builder("symphony.llm.pool.healthy", member, m -> m.isHealthy(System.nanoTime()) ? 1 : 0)
+                        .tag("pool", alias).tag("deployment", member.name).register(registry);
+            }
+        });
+        logger.info("Model {} spread over {} by {}", alias, deployments, pool.byLatency ? "latency" : "least outstanding");
+        return pool;
+    }
+
+    /**
+     * Checks whether a failure should send the call to another deployment.
+     *
+     * @param error the failure
+     * @return true if the deployment throttled the call, failed with a 5xx or could not be reached
+     */
+    static boolean isFailover(Throwable error) {
+        if (AdaptiveConcurrencyLimiter.isThrottled(error)) {
+            return true;
+        }
+        for (Throwable t = error; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (AdaptiveConcurrencyLimiter.statusCode(t) >= 500) {
+                return true;
+            }
+            if (t instanceof ConnectException || t instanceof SocketTimeoutException || t instanceof HttpTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The deployments behind one alias.
+     */
+    private static class Pool {
+        private final String name;
+        private final List<Member> members;
+        private final boolean byLatency;
+
+        Pool(String name, List<Member> members, boolean byLatency) {
+            this.name = name;
+            this.members = members;
+            this.byLatency = byLatency;
+        }
+
+        /**
+         * Picks the better of two healthy deployments drawn by weight, or the deployment
+         * that recovers first when none is healthy.
+         */
+        Member choose(Set<Member> tried) {
+            long now = System.nanoTime();
+            List<Member> healthy = new ArrayList<>();
+            Member recovering = null;
+            for (Member member : members) {
+                if (tried.contains(member)) {
+                    continue;
+                }
+                if (member.isHealthy(now)) {
+                    healthy.add(member);
+                } else if (recovering == null || member.downUntilNanos < recovering.downUntilNanos) {
+                    recovering = member;
+                }
+            }
+            if (healthy.isEmpty()) {
+                if (recovering != null) {
+                    logger.warn("All deployments of {} are failing, trying {}", name, recovering.name);
+                }
+                return recovering;
+            }
+            Member first = draw(healthy, null);
+            Member second = draw(healthy, first);
+            return second == null || score(first) <= score(second) ? first : second;
+        }
+
+        private double score(Member member) {
+            double load = (member.outstanding.get() + 1) / member.weight;
+            return byLatency ? load * Math.max(1, member.latencyMs) : load;
+        }
+
+        private static Member draw(List<Member> members, Member exclude) {
+            double total = 0;
+            for (Member member : members) {
+                if (member != exclude) {
+                    total += member.weight;
+                }
+            }
+            double point = ThreadLocalRandom.current().nextDouble(total);
+            Member last = null;
+            for (Member member : members) {
+                if (member == exclude) {
+                    continue;
+                }
+                last = member;
+                point -= member.weight;
+                if (point < 0) {
+                    return member;
+                }
+            }
+            return last;
+        }
+    }
+
+    /**
+     * One deployment of a pool and its load and health. A call is outstanding from
+     * {@link #start()} to {@link #finished()}; a stream until it terminates.
+     */
+    private class Member {
+        private final String name;
+        private final double weight;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile double latencyMs;
+        private volatile long downUntilNanos;
+        private volatile int failures;
+
+        Member(String name, double weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+
+        boolean isHealthy(long now) {
+            return downUntilNanos == 0 || now - downUntilNanos >= 0;
+        }
+
+        long start() {
+            outstanding.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        void finished() {
+            outstanding.decrementAndGet();
+        }
+
+        void succeeded(long startNanos) {
+            double latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            latencyMs = latencyMs == 0 ? latency : latencyMs * 0.8 + latency * 0.2;
+            failures = 0;
+            downUntilNanos = 0;
+        }
+
+        void failed(Throwable error) {
+            int count = ++failures;
+            long cooldown = Math.min(MAX_COOLDOWN_MS, cooldownMs << Math.min(count - 1, 16));
+            downUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cooldown);
+            logger.warn("Deployment {} failed ({}), out of rotation for {} ms: {}", name, count, cooldown, error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.symphonykernel.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.symphonykernel.Priority;
+
+/**
+ * Orders the callers waiting for LLM capacity by priority, then by arrival.
+ * <p>
+ * A waiter gains one priority class for every {@code agingMs} it has waited, so
+ * background work still gets through under sustained interactive load. Not thread safe;
+ * callers guard it with their own lock.
+ * </p>
+ */
+class DispatchQueue {
+
+    /**
+     * A caller waiting in the queue.
+     */
+    static class Ticket {
+        private final Priority priority;
+        private final long sequence;
+        private final long enqueuedNanos = System.nanoTime();
+
+        Ticket(Priority priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        private long rank(long now, long agingNanos) {
+            long aged = agingNanos > 0 ? (now - enqueuedNanos) / agingNanos : 0;
+            return priority.ordinal() - aged;
+        }
+    }
+
+    private final long agingNanos;
+    private final List<Ticket> tickets = new ArrayList<>();
+    private long sequence;
+
+    DispatchQueue(long agingMs) {
+        this.agingNanos = agingMs * 1_000_000L;
+    }
+
+    Ticket enqueue(Priority priority) {
+        Ticket ticket = new Ticket(priority != null ? priority : Priority.INTERACTIVE, sequence++);
+        tickets.add(ticket);
+        return ticket;
+    }
+
+    void remove(Ticket ticket) {
+        tickets.remove(ticket);
+    }
+
+    /**
+     * Checks whether a ticket is first in line: no waiter has a better rank, and none with
+     * the same rank arrived earlier.
+     */
+    boolean isNext(Ticket ticket) {
+        long now = System.nanoTime();
+        long rank = ticket.rank(now, agingNanos);
+        for (Ticket other : tickets) {
+            if (other == ticket) {
+                continue;
+            }
+            long otherRank = other.rank(now, agingNanos);
+            if (otherRank < rank || (otherRank == rank && other.sequence < ticket.sequence)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Caps the sleep of a waiter that is not first in line at the aging interval, so it
+     * checks again once aging may have moved it up.
+     */
+    long maxWaitNanos(long remaining) {
+        return agingNanos > 0 ? Math.min(remaining, agingNanos) : remaining;
+    }
+
+    int size() {
+        return tickets.size();
+    }
+}
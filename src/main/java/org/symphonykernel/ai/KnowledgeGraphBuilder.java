@@ -24,6 +24,7 @@ import org.symphonykernel.UserSession;
 import org.symphonykernel.UserSessionStepDetails;
 import org.symphonykernel.config.Constants;
 import org.symphonykernel.core.IAIClient;
+import org.symphonykernel.core.IPluginLoader;
 import org.symphonykernel.core.IStep;
 import org.symphonykernel.core.IknowledgeBase;
 import org.symphonykernel.providers.FileContentProvider;
@@ -230,6 +231,8 @@ public class KnowledgeGraphBuilder {
     VectorSearchHelper vector;
     @Autowired
     private FileContentProvider fileContentProvider;
+    @Autowired
+    IPluginLoader pluginLoader;
 
     /**
      * Creates a new execution context for a given chat request.
@@ -610,6 +613,7 @@ public class KnowledgeGraphBuilder {
         } else {
             try {
                 MDC.put(Constants.LOGGER_TRACE_ID, ctx.getRequestId());
+                ctx.getPriority().apply();
                 logger.info("Processing request for requestId: {}", ctx.getRequestId());
                 response = processRequest(ctx, knowledge, step);
                 logger.info("Response {}", response.getMessage());
@@ -630,6 +634,7 @@ public class KnowledgeGraphBuilder {
                 }
             } finally {
                 logger.info("request processing completed for requestId: {}", ctx.getRequestId());
+                pluginLoader.releaseRequest(ctx.getRequestId());
                 MDC.clear();
             }
 
@@ -805,7 +810,12 @@ public class KnowledgeGraphBuilder {
             String systemPrompt = templateResolver.resolvePlaceholders(prompt);
          // 2. Use a local StringBuilder to capture the stream chunks
             StringBuilder responseAccumulator = new StringBuilder();
-            return openAI.streamExecute(new LLMRequest(systemPrompt, query, null, ctx.getModelName())).doOnNext(responseAccumulator::append) // Capture each chunk as it flies by
+            return openAI.streamExecute(new LLMRequest(systemPrompt, query, null, ctx.getModelName())).doOnNext(chunk -> {
+                        // Capture each chunk as it flies by, leaving out progress lines
+                        if (!Constants.isProgress(chunk)) {
+                            responseAccumulator.append(chunk);
+                        }
+                    })
                     .doFinally(signalType -> {
                         // 3. This runs only when the stream completes or errors out
                         String fullResponse = responseAccumulator.toString();
@@ -921,12 +931,18 @@ public class KnowledgeGraphBuilder {
     private Flux<String> processRequestStream(ExecutionContext ctx, IStep step) {
     	
     	StringBuilder responseAccumulator = new StringBuilder();
-        return step.getResponseStream(ctx).doOnNext(responseAccumulator::append) // Capture each chunk as it flies by
+        return step.getResponseStream(ctx).doOnNext(chunk -> {
+                    // Capture each chunk as it flies by, leaving out progress lines
+                    if (!Constants.isProgress(chunk)) {
+                        responseAccumulator.append(chunk);
+                    }
+                })
                 .doFinally(signalType -> {
                     // 3. This runs only when the stream completes or errors out
                     String fullResponse = responseAccumulator.toString();
                     sessionManager.updateUserSession(ctx.getUserSession(), fullResponse, Status.SUCCESS);
                     logger.info("Session saved for requestId: {}", ctx.getRequestId());
+                    pluginLoader.releaseRequest(ctx.getRequestId());
                 });
         
     }
@@ -0,0 +1,255 @@
+package org.symphonykernel.ai;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.symphonykernel.LLMRequest;
+import org.symphonykernel.providers.DocumentCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import redis.clients.jedis.UnifiedJedis;
+
+/**
+ * Exact-match cache of LLM responses.
+ * <p>
+ * Responses are keyed by the SHA-256 hash of the model, temperature, system prompt, user
+ * prompt and tool classes of a request. Only requests whose model is configured with a
+ * temperature ({@code client.azureopenai.{model}.options.temperature}) of at most
+ * {@code symphony.llm.cache.max.temperature} are cached, so sampled answers are never
+ * replayed; requests with tools are cached only when {@code symphony.llm.cache.tools.enabled}
+ * is set, since tool results may change between calls. Entries live in a size-bounded
+ * in-memory LRU tier and, with {@code symphony.llm.cache.redis.enabled}, in Redis; both
+ * expire after {@code symphony.llm.cache.ttl.seconds}. Disabled unless
+ * {@code symphony.llm.cache.enabled} is set. Hits and misses are published as the
+ * {@code symphony.llm.cache.requests} meter when a meter registry is available.
+ * </p>
+ */
+@Component
+public class LLMResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LLMResponseCache.class);
+
+    /**
+     * A cached response and the time it expires.
+     */
+    private static class Entry {
+        private final String value;
+        private final long expiresAt;
+
+        Entry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @Value("${symphony.llm.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${symphony.llm.cache.max.entries:10000}")
+    private int maxEntries;
+
+    @Value("${symphony.llm.cache.ttl.seconds:3600}")
+    private long ttlSeconds;
+
+    @Value("${symphony.llm.cache.max.temperature:0.0}")
+    private double maxTemperature;
+
+    @Value("${symphony.llm.cache.tools.enabled:false}")
+    private boolean cacheTools;
+
+    @Value("${symphony.llm.cache.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${symphony.llm.cache.redis.prefix:symphony:llm:}")
+    private String redisPrefix;
+
+    private final ObjectProvider<UnifiedJedis> jedisProvider;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private UnifiedJedis jedis;
+
+    private final Map<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates the cache.
+     *
+     * @param jedisProvider         the Redis client, optional
+     * @param meterRegistryProvider the meter registry, optional
+     */
+    public LLMResponseCache(ObjectProvider<UnifiedJedis> jedisProvider, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.jedisProvider = jedisProvider;
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    /**
+     * Connects the Redis tier and registers the metrics.
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (redisEnabled) {
+            jedis = jedisProvider.getIfAvailable();
+            if (jedis == null) {
+                logger.warn("LLM response cache Redis tier enabled but no UnifiedJedis bean is available");
+            }
+        }
+        meterRegistryProvider.ifAvailable(registry -> {
+            FunctionCounter.builder("symphony.llm.cache.requests", hits, AtomicLong::get).tag("result", "hit").register(registry);
+            FunctionCounter.builder("symphony.llm.cache.requests", misses, AtomicLong::get).tag("result", "miss").register(registry);
+            Gauge.builder("symphony.llm.cache.size", memory, m -> {
+                synchronized (m) {
+                    return m.size();
+                }
+            }).register(registry);
+        });
+        logger.info("LLM response cache enabled: {} entries, ttl {}s, redis {}", maxEntries, ttlSeconds, jedis != null);
+    }
+
+    /**
+     * Returns the cached response of a request, or calls the model and caches its response.
+     *
+     * @param request     the request
+     * @param temperature the temperature the request runs with, null if unknown
+     * @param call        calls the model
+     * @return the response
+     */
+    public String get(LLMRequest request, Double temperature, Supplier<String> call) {
+        if (!isCacheable(request, temperature)) {
+            return call.get();
+        }
+        String key = key(request, temperature);
+        String value = lookup(key);
+        if (value != null) {
+            hits.incrementAndGet();
+            logger.debug("LLM response cache hit {}", key);
+            return value;
+        }
+        misses.incrementAndGet();
+        value = call.get();
+        if (value != null) {
+            store(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Gets the number of requests answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of cacheable requests sent to the model.
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the share of cacheable requests answered from the cache.
+     *
+     * @return the hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    private boolean isCacheable(LLMRequest request, Double temperature) {
+        if (!enabled || request == null || temperature == null || temperature > maxTemperature) {
+            return false;
+        }
+        return cacheTools || request.getTools() == null || request.getTools().length == 0;
+    }
+
+    private String key(LLMRequest request, Double temperature) {
+        String tools = request.getTools() == null ? "" : Arrays.stream(request.getTools())
+                .filter(Objects::nonNull)
+                .<String>map(tool -> (AopUtils.isAopProxy(tool) ? AopUtils.getTargetClass(tool) : tool.getClass()).getName())
+                .sorted()
+                .collect(Collectors.joining(","));
+        // Length-prefix each part so different splits of the same text cannot collide
+        StringBuilder sb = new StringBuilder();
+        for (String part : new String[] { request.getModelName(), String.valueOf(temperature),
+                request.getSystemMessage(), request.getUserPrompt(), tools }) {
+            String text = part == null ? "" : part;
+            sb.append(text.length()).append(':').append(text);
+        }
+        return DocumentCache.sha256(sb.toString());
+    }
+
+    private String lookup(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    return entry.value;
+                }
+                memory.remove(key);
+            }
+        }
+        if (jedis == null) {
+            return null;
+        }
+        try {
+            String value = jedis.get(redisPrefix + key);
+            if (value != null) {
+                putInMemory(key, value);
+            }
+            return value;
+        } catch (Exception e) {
+            logger.warn("Unable to read LLM response cache entry from Redis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(String key, String value) {
+        putInMemory(key, value);
+        if (jedis == null) {
+            return;
+        }
+        try {
+            jedis.setex(redisPrefix + key, ttlSeconds, value);
+        } catch (Exception e) {
+            logger.warn("Unable to write LLM response cache entry to Redis: {}", e.getMessage());
+        }
+    }
+
+    private void putInMemory(String key, String value) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        synchronized (memory) {
+            memory.put(key, new Entry(value, System.currentTimeMillis() + ttlSeconds * 1000));
+            var it = memory.entrySet().iterator();
+            while (memory.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+}
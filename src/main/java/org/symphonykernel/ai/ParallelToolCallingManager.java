@@ -0,0 +1,241 @@
+package org.symphonykernel.ai;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.DefaultToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.symphonykernel.Priority;
+import org.symphonykernel.config.Constants;
+
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Tool calling manager that runs the tool calls of one model turn concurrently.
+ * <p>
+ * When the model asks for several tools in a single response, the calls are executed in
+ * parallel, at most {@code symphony.tools.parallel.max} at a time per turn, each bounded by
+ * {@code symphony.tools.timeout.ms} (overridable per tool with
+ * {@code symphony.tools.timeout.<tool name>.ms}) counted from the moment the turn's calls
+ * are submitted, time spent waiting for a slot included. A tool that runs out of time is
+ * interrupted and answered with a timeout message. Responses are returned in the order the
+ * model requested them. Single calls, and calls that cannot be matched to a tool callback
+ * of the request, are handed to Spring AI's default manager. Parallel execution is enabled
+ * with {@code symphony.tools.parallel.enabled=true}; otherwise every call goes to the
+ * default manager. Being a {@link ToolCallingManager} bean it replaces the default one used
+ * by the chat models, and in both modes gives the deployment slot of the calling request
+ * back while its tools run (see {@link ConcurrencyLimiterRegistry.Slot}).
+ * </p>
+ */
+@Component
+public class ParallelToolCallingManager implements ToolCallingManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelToolCallingManager.class);
+    private static final String TIMEOUT_PROPERTY = "symphony.tools.timeout.";
+
+    @Value("${symphony.tools.parallel.enabled:false}")
+    private boolean parallelEnabled;
+
+    @Value("${symphony.tools.parallel.max:4}")
+    private int maxParallel;
+
+    @Value("${symphony.tools.parallel.threads:16}")
+    private int threadPoolSize;
+
+    @Value("${symphony.tools.timeout.ms:30000}")
+    private long defaultTimeoutMs;
+
+    private final Environment environment;
+    private final ToolCallingManager delegate;
+    private final ToolExecutionExceptionProcessor exceptionProcessor;
+    private ExecutorService executorService;
+
+    /**
+     * Creates the manager, building the default manager it delegates to from the
+     * observation registry and tool callback resolver when they are available.
+     *
+     * @param environment          the environment holding per-tool timeouts
+     * @param observationRegistry  the observation registry, optional
+     * @param toolCallbackResolver the tool callback resolver, optional
+     * @param exceptionProcessor   the processor turning tool failures into responses, optional
+     */
+    public ParallelToolCallingManager(Environment environment, ObjectProvider<ObservationRegistry> observationRegistry,
+            ObjectProvider<ToolCallbackResolver> toolCallbackResolver, ObjectProvider<ToolExecutionExceptionProcessor> exceptionProcessor) {
+        this.environment = environment;
+        this.exceptionProcessor = exceptionProcessor.getIfUnique(() -> DefaultToolExecutionExceptionProcessor.builder().build());
+        DefaultToolCallingManager.Builder builder = ToolCallingManager.builder();
+        observationRegistry.ifAvailable(builder::observationRegistry);
+        toolCallbackResolver.ifAvailable(builder::toolCallbackResolver);
+        builder.toolExecutionExceptionProcessor(this.exceptionProcessor);
+        this.delegate = builder.build();
+    }
+
+    /**
+     * Initializes the thread pool that runs tool calls.
+     */
+    @PostConstruct
+    public void init() {
+        if (parallelEnabled) {
+            executorService = Executors.newFixedThreadPool(Math.max(1, threadPoolSize));
+        }
+    }
+
+    /**
+     * Shuts down the tool call thread pool.
+     */
+    @PreDestroy
+    public void cleanup() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    /**
+     * Executes the tool calls of a response. The deployment slot of the call that asked for
+     * the tools is given back while they run, so tools calling the model themselves do not
+     * wait on their caller.
+     */
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        ConcurrencyLimiterRegistry.Slot slot = null;
+        if (prompt.getOptions() instanceof ToolCallingChatOptions options && options.getToolContext() != null
+                && options.getToolContext().get(ConcurrencyLimiterRegistry.PERMIT_CONTEXT_KEY) instanceof ConcurrencyLimiterRegistry.Slot held) {
+            slot = held;
+            slot.suspend();
+        }
+        try {
+            return execute(prompt, chatResponse);
+        } finally {
+            if (slot != null) {
+                slot.resume();
+            }
+        }
+    }
+
+    private ToolExecutionResult execute(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(AssistantMessage::hasToolCalls)
+                .findFirst()
+                .orElse(null);
+        if (!parallelEnabled || assistantMessage == null || assistantMessage.getToolCalls().size() < 2
+                || !(prompt.getOptions() instanceof ToolCallingChatOptions options)) {
+            return delegate.executeToolCalls(prompt, chatResponse);
+        }
+
+        Map<String, ToolCallback> callbacks = new HashMap<>();
+        for (ToolCallback callback : options.getToolCallbacks()) {
+            callbacks.put(callback.getToolDefinition().name(), callback);
+        }
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+        if (!toolCalls.stream().allMatch(call -> callbacks.containsKey(call.name()))) {
+            return delegate.executeToolCalls(prompt, chatResponse);
+        }
+
+        List<Message> history = new ArrayList<>(prompt.copy().getInstructions());
+        Map<String, Object> context = options.getToolContext() != null ? new HashMap<>(options.getToolContext()) : new HashMap<>();
+        context.put(ToolContext.TOOL_CALL_HISTORY, history);
+        ToolContext toolContext = new ToolContext(context);
+
+        logger.info("Executing {} tool calls in parallel", toolCalls.size());
+        String traceId = MDC.get(Constants.LOGGER_TRACE_ID);
+        Priority priority = Priority.current();
+        Semaphore permits = new Semaphore(Math.max(1, maxParallel));
+        long submittedNanos = System.nanoTime();
+        List<Future<String>> futures = new ArrayList<>();
+        for (AssistantMessage.ToolCall toolCall : toolCalls) {
+            ToolCallback callback = callbacks.get(toolCall.name());
+            // The slot is taken on the pool thread, so the caller never blocks before the timeouts apply
+            futures.add(executorService.submit(() -> {
+                permits.acquire();
+                MDC.put(Constants.LOGGER_TRACE_ID, traceId);
+                priority.apply();
+                try {
+                    return callback.call(toolCall.arguments(), toolContext);
+                } catch (ToolExecutionException e) {
+                    return exceptionProcessor.process(e);
+                } finally {
+                    MDC.clear();
+                    permits.release();
+                }
+            }));
+        }
+
+        List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>();
+        boolean returnDirect = true;
+        for (int i = 0; i < toolCalls.size(); i++) {
+            AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+            ToolCallback callback = callbacks.get(toolCall.name());
+            returnDirect = returnDirect && callback.getToolMetadata().returnDirect();
+            responses.add(new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(), await(toolCall.name(), futures.get(i), submittedNanos)));
+        }
+
+        history.add(assistantMessage);
+        ToolResponseMessage toolResponseMessage = ToolResponseMessage.builder().responses(responses).build();
+        history.add(toolResponseMessage);
+        return ToolExecutionResult.builder()
+                .conversationHistory(history)
+                .returnDirect(returnDirect)
+                .build();
+    }
+
+    private String await(String toolName, Future<String> future, long submittedNanos) {
+        long timeoutMs = environment.getProperty(TIMEOUT_PROPERTY + toolName + ".ms", Long.class, defaultTimeoutMs);
+        long remaining = submittedNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs) - System.nanoTime();
+        try {
+            return future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            // Interrupts the tool, or drops it if it is still waiting for a slot
+            future.cancel(true);
+            logger.warn("Tool {} timed out after {} ms", toolName, timeoutMs);
+            return "Tool " + toolName + " timed out after " + timeoutMs + " ms";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for tool " + toolName, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Tool " + toolName + " failed", e.getCause());
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package org.symphonykernel.ai;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.stereotype.Service;
+import org.symphonykernel.config.Constants;
 import org.symphonykernel.core.IPluginLoader;
+import org.symphonykernel.core.PluginScope;
 /**
  * The PluginLoader class is a Spring-managed service that implements the {@link IPluginLoader} 
  * interface and the {@link ApplicationContextAware} interface. It is responsible for loading 
@@ -50,34 +56,145 @@ import org.symphonykernel.core.IPluginLoader;
  */
 /**
  * Implementation of the {@link IPluginLoader} interface for loading plugins into the kernel.
+ * Class lookups are cached and instances are reused per {@link PluginScope}: shared,
+ * per request or created on every use. Request instances are keyed by the request id the
+ * caller passes in, or by the trace id in the {@link MDC} when none is passed, and live
+ * until {@link #releaseRequest(String)} is called for that id. Instances are created
+ * outside of any lock, so a plugin whose construction loads other plugins works in every
+ * scope; when two threads race, the first instance stored wins.
  */
 @Service
 public class PluginLoader implements IPluginLoader, ApplicationContextAware {
 
     private static final Logger logger = LoggerFactory.getLogger(PluginLoader.class);
 
+    private static final String SCOPE_PROPERTY = "symphony.plugin.scope.";
+
     private ApplicationContext applicationContext;
+
+    @Value("${symphony.plugin.scope.default:prototype}")
+    private String defaultScope;
+
+    private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+    private final Map<Class<?>, PluginScope.Scope> scopes = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Object> singletons = new ConcurrentHashMap<>();
+    private final Map<String, Map<Class<?>, Object>> requestInstances = new ConcurrentHashMap<>();
     
     @Override
     public void setApplicationContext(ApplicationContext context) throws BeansException {
         applicationContext = context;
     }
 
+    /**
+     * Resolves a plugin class by name, caching the lookup.
+     *
+     * @param fullyQualifiedName The fully qualified name of the class.
+     * @return The class.
+     * @throws ClassNotFoundException if the class cannot be found.
+     */
+    @Override
+    public Class<?> getPluginClass(String fullyQualifiedName) throws ClassNotFoundException {
+        Class<?> clazz = classes.get(fullyQualifiedName);
+        if (clazz == null) {
+            clazz = Class.forName(fullyQualifiedName);
+            classes.put(fullyQualifiedName, clazz);
+        }
+        return clazz;
+    }
+
     /**
      * Creates an instance of a class given its fully qualified name, allowing
-     * for autowired dependencies.
+     * for autowired dependencies. The class lookup is cached and the instance is
+     * reused according to the class's {@link PluginScope}.
      *
      * @param fullyQualifiedName The fully qualified name of the class (e.g.,
      * "com.example.MyClass").
      * @return An instance of the class, or null if an error occurs.
      */
     public Object createObject(String fullyQualifiedName) throws ClassNotFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
-        // Load the class using the class loader.
-        Class<?> clazz = Class.forName(fullyQualifiedName);
+        return createObject(fullyQualifiedName, MDC.get(Constants.LOGGER_TRACE_ID));
+    }
+
+    /**
+     * Creates an instance of a class for a request, reusing it according to the class's
+     * {@link PluginScope}. Request-scoped instances are kept under {@code requestId}.
+     *
+     * @param fullyQualifiedName The fully qualified name of the class.
+     * @param requestId The id of the request, or null to create request-scoped plugins on every use.
+     * @return An instance of the class.
+     */
+    @Override
+    public Object createObject(String fullyQualifiedName, String requestId) throws ClassNotFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        Class<?> clazz = getPluginClass(fullyQualifiedName);
+        switch (getScope(clazz)) {
+            case SINGLETON:
+                return getOrCreate(singletons, clazz);
+            case REQUEST:
+                if (requestId != null) {
+                    return getOrCreate(requestInstances.computeIfAbsent(requestId, k -> new ConcurrentHashMap<>()), clazz);
+                }
+                return createBean(clazz);
+            default:
+                return createBean(clazz);
+        }
+    }
+
+    /**
+     * Drops the request-scoped plugin instances of a finished request.
+     *
+     * @param requestId the id the instances were created under
+     */
+    @Override
+    public void releaseRequest(String requestId) {
+        if (requestId == null) {
+            return;
+        }
+        Map<Class<?>, Object> instances = requestInstances.remove(requestId);
+        if (instances != null) {
+            instances.values().forEach(applicationContext.getAutowireCapableBeanFactory()::destroyBean);
+            logger.debug("Released {} plugin instance(s) of request {}", instances.size(), requestId);
+        }
+    }
+
+    private Object getOrCreate(Map<Class<?>, Object> instances, Class<?> clazz) {
+        Object instance = instances.get(clazz);
+        if (instance != null) {
+            return instance;
+        }
+        // Created outside the map so construction may load other plugins
+        Object created = createBean(clazz);
+        Object existing = instances.putIfAbsent(clazz, created);
+        if (existing != null) {
+            applicationContext.getAutowireCapableBeanFactory().destroyBean(created);
+            return existing;
+        }
+        return created;
+    }
+
+    /**
+     * Gets the reuse policy of a plugin class: the {@code symphony.plugin.scope.<class>}
+     * property, then the {@link PluginScope} annotation, then the configured default.
+     *
+     * @param clazz The plugin class.
+     * @return The scope.
+     */
+    public PluginScope.Scope getScope(Class<?> clazz) {
+        return scopes.computeIfAbsent(clazz, c -> {
+            String configured = applicationContext.getEnvironment().getProperty(SCOPE_PROPERTY + c.getName());
+            if (configured != null) {
+                return PluginScope.Scope.valueOf(configured.trim().toUpperCase());
+            }
+            PluginScope annotation = c.getAnnotation(PluginScope.class);
+            if (annotation != null) {
+                return annotation.value();
+            }
+            return PluginScope.Scope.valueOf(defaultScope.trim().toUpperCase());
+        });
+    }
 
+    private Object createBean(Class<?> clazz) {
         //Use Spring to create the instance, which will handle autowiring
-        Object instance = applicationContext.getAutowireCapableBeanFactory().createBean(clazz);
-        return instance;
+        return applicationContext.getAutowireCapableBeanFactory().createBean(clazz);
     }
     /**
      * Creates an instance of a class given its fully qualified name and casts it to the specified type.
@@ -88,11 +205,25 @@ public class PluginLoader implements IPluginLoader, ApplicationContextAware {
      * @return An instance of the class cast to the specified type, or null if an error occurs.
      */
     public <T> T createObject(String fullyQualifiedName, Class<T> type)  {
+        return createObject(fullyQualifiedName, type, MDC.get(Constants.LOGGER_TRACE_ID));
+    }
+
+    /**
+     * Creates an instance of a class for a request and casts it to the specified type.
+     *
+     * @param <T> The type to cast the created object to.
+     * @param fullyQualifiedName The fully qualified name of the class.
+     * @param type The Class object representing the type to cast to.
+     * @param requestId The id of the request, or null to create request-scoped plugins on every use.
+     * @return An instance of the class cast to the specified type, or null if an error occurs.
+     */
+    @Override
+    public <T> T createObject(String fullyQualifiedName, Class<T> type, String requestId)  {
      
         // Use Spring to create the instance, which will handle autowiring
         Object instance;
         try {
-            instance = createObject(fullyQualifiedName);
+            instance = createObject(fullyQualifiedName, requestId);
 
             // Cast the instance to the specified type
             return type.cast(instance);
@@ -0,0 +1,131 @@
+package org.symphonykernel.ai;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Reports how many prompt tokens the providers served from their prompt cache.
+ * <p>
+ * The cached tokens are read from the provider's own usage in each response: Anthropic
+ * reports {@code cache_read_input_tokens} and {@code cache_creation_input_tokens} next to
+ * the uncached input tokens, Azure OpenAI reports {@code cached_tokens} as part of the
+ * prompt tokens. The tokens of each deployment are published as the
+ * {@code symphony.llm.prompt.tokens} counter, tagged {@code cache=read}, {@code write} or
+ * {@code miss}, when a meter registry is available.
+ * </p>
+ */
+@Component
+public class PromptCacheMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromptCacheMetrics.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final AtomicLong promptTokens = new AtomicLong();
+    private final AtomicLong cachedTokens = new AtomicLong();
+
+    /**
+     * Creates the metrics.
+     *
+     * @param meterRegistryProvider the meter registry, optional
+     */
+    public PromptCacheMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    /**
+     * Records the prompt tokens of a response.
+     *
+     * @param deployment the deployment that answered
+     * @param response   the response, or the last response of a stream; may be null
+     */
+    public void record(String deployment, ChatResponse response) {
+        if (response == null) {
+            return;
+        }
+        ChatResponseMetadata metadata = response.getMetadata();
+        Usage usage = metadata != null ? metadata.getUsage() : null;
+        if (usage == null || usage.getPromptTokens() == null || usage.getPromptTokens() <= 0) {
+            return;
+        }
+        JsonNode nativeUsage = toJson(usage.getNativeUsage());
+        long read;
+        long write = 0;
+        long miss;
+        if (find(nativeUsage, "cache_read_input_tokens", "cacheReadInputTokens") >= 0) {
+            // Anthropic counts cached input apart from the input tokens
+            read = find(nativeUsage, "cache_read_input_tokens", "cacheReadInputTokens");
+            write = Math.max(0, find(nativeUsage, "cache_creation_input_tokens", "cacheCreationInputTokens"));
+            miss = usage.getPromptTokens();
+        } else {
+            read = Math.max(0, find(nativeUsage, "cached_tokens", "cachedTokens"));
+            miss = Math.max(0, usage.getPromptTokens() - read);
+        }
+        promptTokens.addAndGet(read + write + miss);
+        cachedTokens.addAndGet(read);
+        logger.debug("Prompt tokens on {}: {} cached, {} written to cache, {} uncached", deployment, read, write, miss);
+        String name = deployment == null ? "default" : deployment;
+        long cacheWrites = write;
+        meterRegistryProvider.ifAvailable(registry -> {
+            increment(registry, name, "read", read);
+            increment(registry, name, "write", cacheWrites);
+            increment(registry, name, "miss", miss);
+        });
+    }
+
+    /**
+     * Gets the share of prompt tokens served from provider prompt caches.
+     *
+     * @return the cached share between 0 and 1
+     */
+    public double getCachedTokenRatio() {
+        long total = promptTokens.get();
+        return total == 0 ? 0 : (double) cachedTokens.get() / total;
+    }
+
+    private static void increment(MeterRegistry registry, String deployment, String cache, long tokens) {
+        if (tokens > 0) {
+            Counter.builder("symphony.llm.prompt.tokens").tag("deployment", deployment).tag("cache", cache)
+                    .register(registry).increment(tokens);
+        }
+    }
+
+    private static JsonNode toJson(Object nativeUsage) {
+        if (nativeUsage == null) {
+            return null;
+        }
+        try {
+            return objectMapper.valueToTree(nativeUsage);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Unable to read native usage {}: {}", nativeUsage.getClass().getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static long find(JsonNode node, String... names) {
+        if (node == null) {
+            return -1;
+        }
+        for (String name : names) {
+            JsonNode value = node.findValue(name);
+            if (value != null && value.canConvertToLong()) {
+                return value.asLong();
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,300 @@
+package org.symphonykernel.ai;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.RateLimit;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.symphonykernel.Priority;
+import org.symphonykernel.config.AzureOpenAIConnectionProperties;
+
+/**
+ * Admits LLM requests against the tokens-per-minute and requests-per-minute quotas of
+ * their deployment.
+ * <p>
+ * Each deployment with a {@code tokensPerMinute} or {@code requestsPerMinute} quota
+ * (see {@link AzureOpenAIConnectionProperties}) gets a pair of token buckets refilled
+ * continuously at the quota rate. A request reserves one request and its estimated prompt
+ * plus completion tokens; requests that do not fit wait by priority, then arrival (see
+ * {@link DispatchQueue}), at most {@code symphony.llm.quota.acquire.timeout.ms}. Once the response arrives the reservation
+ * is reconciled with the reported token usage, and the buckets are lowered to the remaining
+ * quota the provider reports in its rate limit headers. Deployments without a quota are
+ * not limited.
+ * </p>
+ */
+@Component
+public class QuotaScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuotaScheduler.class);
+
+    @Value("${symphony.llm.quota.acquire.timeout.ms:120000}")
+    private long acquireTimeoutMs;
+
+    @Value("${symphony.llm.quota.completion.tokens:1000}")
+    private int defaultCompletionTokens;
+
+    @Value("${symphony.llm.priority.aging.ms:5000}")
+    private long agingMs;
+
+    private final AzureOpenAIConnectionProperties conProperties;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the scheduler.
+     *
+     * @param connectionProperties the connection properties holding the quotas
+     */
+    public QuotaScheduler(AzureOpenAIConnectionProperties connectionProperties) {
+        this.conProperties = connectionProperties;
+    }
+
+    /**
+     * Tokens reserved by an admitted request.
+     */
+    public static class Reservation {
+        private final Bucket bucket;
+        private final int tokens;
+        private final AtomicBoolean reconciled = new AtomicBoolean();
+
+        Reservation(Bucket bucket, int tokens) {
+            this.bucket = bucket;
+            this.tokens = tokens;
+        }
+
+        /**
+         * Reconciles the reservation with the usage and rate limits reported in a response.
+         * Only the first call has an effect.
+         *
+         * @param response the last response of the call, may be null
+         */
+        public void reconcile(ChatResponse response) {
+            if (bucket == null || response == null || !reconciled.compareAndSet(false, true)) {
+                return;
+            }
+            ChatResponseMetadata metadata = response.getMetadata();
+            if (metadata == null) {
+                return;
+            }
+            Usage usage = metadata.getUsage();
+            if (usage != null && usage.getTotalTokens() != null && usage.getTotalTokens() > 0) {
+                bucket.refund(tokens - usage.getTotalTokens());
+            }
+            RateLimit rateLimit = metadata.getRateLimit();
+            if (rateLimit != null) {
+                bucket.sync(rateLimit.getTokensLimit(), rateLimit.getTokensRemaining(),
+                        rateLimit.getRequestsLimit(), rateLimit.getRequestsRemaining());
+            }
+        }
+    }
+
+    /**
+     * Waits until the deployment's quota admits a request.
+     *
+     * @param deployment the deployment name
+     * @param priority   the priority of the request
+     * @param tokens     estimates the prompt tokens of the request; only called when the
+     *                   deployment has a token quota
+     * @return the reservation to reconcile with the response
+     * @throws IllegalStateException if the request was not admitted in time
+     */
+    public Reservation admit(String deployment, Priority priority, IntSupplier tokens) {
+        Bucket bucket = getBucket(deployment);
+        if (bucket == null) {
+            return new Reservation(null, 0);
+        }
+        int estimate = bucket.tokensPerMinute > 0 ? tokens.getAsInt() + completionTokens(deployment) : 0;
+        bucket.acquire(priority, estimate, acquireTimeoutMs);
+        return new Reservation(bucket, estimate);
+    }
+
+    /**
+     * Gets the tokens currently available to a deployment.
+     *
+     * @param deployment the deployment name
+     * @return the available tokens, or -1 if the deployment has no token quota
+     */
+    public long getAvailableTokens(String deployment) {
+        Bucket bucket = getBucket(deployment);
+        return bucket == null || bucket.tokensPerMinute == 0 ? -1 : bucket.availableTokens();
+    }
+
+    /**
+     * Gets the number of requests waiting for a deployment's quota.
+     *
+     * @param deployment the deployment name
+     * @return the queue depth
+     */
+    public int getQueueDepth(String deployment) {
+        Bucket bucket = getBucket(deployment);
+        return bucket == null ? 0 : bucket.queueDepth();
+    }
+
+    private int completionTokens(String deployment) {
+        Integer max = conProperties.getMaxCompletionTokens(deployment);
+        if (max == null) {
+            max = conProperties.getMaxTokens(deployment);
+        }
+        return max != null ? max : defaultCompletionTokens;
+    }
+
+    private Bucket getBucket(String deployment) {
+        String key = deployment == null ? "default" : deployment;
+        Bucket bucket = buckets.computeIfAbsent(key, name -> {
+            int tpm = conProperties.getTokensPerMinute(deployment);
+            int rpm = conProperties.getRequestsPerMinute(deployment);
+            if (tpm <= 0 && rpm <= 0) {
+                return Bucket.UNLIMITED;
+            }
+            logger.info("Quota for deployment {}: {} tokens/min, {} requests/min", name, tpm, rpm);
+            return new Bucket(name, Math.max(0, tpm), Math.max(0, rpm), agingMs);
+        });
+        return bucket == Bucket.UNLIMITED ? null : bucket;
+    }
+
+    /**
+     * Token and request buckets of one deployment, served by priority.
+     */
+    private static class Bucket {
+        static final Bucket UNLIMITED = new Bucket("unlimited", 0, 0, 0);
+
+        private final String name;
+        private final int tokensPerMinute;
+        private final int requestsPerMinute;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final DispatchQueue queue;
+        private double tokens;
+        private double requests;
+        private long refilledNanos = System.nanoTime();
+
+        Bucket(String name, int tokensPerMinute, int requestsPerMinute, long agingMs) {
+            this.name = name;
+            this.tokensPerMinute = tokensPerMinute;
+            this.requestsPerMinute = requestsPerMinute;
+            this.tokens = tokensPerMinute;
+            this.requests = requestsPerMinute;
+            this.queue = new DispatchQueue(agingMs);
+        }
+
+        void acquire(Priority priority, int estimate, long timeoutMs) {
+            // A request larger than the whole quota is admitted once the bucket is full
+            int needed = Math.min(estimate, tokensPerMinute);
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            lock.lock();
+            DispatchQueue.Ticket ticket = queue.enqueue(priority);
+            boolean wasNext = false;
+            try {
+                while (true) {
+                    refill();
+                    boolean fits = (requestsPerMinute == 0 || requests >= 1) && (tokensPerMinute == 0 || tokens >= needed);
+                    boolean next = queue.isNext(ticket);
+                    if (next && fits) {
+                        break;
+                    }
+                    if (wasNext && !next) {
+                        // An aged waiter overtook us; wake it rather than leave it asleep
+                        changed.signalAll();
+                    }
+                    wasNext = next;
+                    if (remaining <= 0) {
+                        throw new IllegalStateException("Timed out after " + timeoutMs + " ms waiting for quota on deployment " + name
+                                + " (" + estimate + " tokens, queued " + queue.size() + ")");
+                    }
+                    long wait = next ? waitNanos(needed) : queue.maxWaitNanos(remaining);
+                    long slice = Math.min(wait, remaining);
+                    remaining -= slice - changed.awaitNanos(slice);
+                }
+                if (requestsPerMinute > 0) {
+                    requests -= 1;
+                }
+                if (tokensPerMinute > 0) {
+                    tokens -= estimate;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for quota on deployment " + name, e);
+            } finally {
+                queue.remove(ticket);
+                changed.signalAll();
+                lock.unlock();
+            }
+        }
+
+        void refund(int tokenDelta) {
+            if (tokensPerMinute == 0 || tokenDelta == 0) {
+                return;
+            }
+            lock.lock();
+            try {
+                tokens = Math.min(tokensPerMinute, tokens + tokenDelta);
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void sync(Long tokensLimit, Long tokensRemaining, Long requestsLimit, Long requestsRemaining) {
+            lock.lock();
+            try {
+                refill();
+                if (tokensPerMinute > 0 && tokensLimit != null && tokensLimit > 0 && tokensRemaining != null && tokensRemaining < tokens) {
+                    tokens = tokensRemaining;
+                }
+                if (requestsPerMinute > 0 && requestsLimit != null && requestsLimit > 0 && requestsRemaining != null && requestsRemaining < requests) {
+                    requests = requestsRemaining;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long availableTokens() {
+            lock.lock();
+            try {
+                refill();
+                return (long) tokens;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int queueDepth() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            double minutes = (now - refilledNanos) / 60e9;
+            refilledNanos = now;
+            tokens = Math.min(tokensPerMinute, tokens + tokensPerMinute * minutes);
+            requests = Math.min(requestsPerMinute, requests + requestsPerMinute * minutes);
+        }
+
+        private long waitNanos(int needed) {
+            double minutes = 0;
+            if (requestsPerMinute > 0 && requests < 1) {
+                minutes = Math.max(minutes, (1 - requests) / requestsPerMinute);
+            }
+            if (tokensPerMinute > 0 && tokens < needed) {
+                minutes = Math.max(minutes, (needed - tokens) / tokensPerMinute);
+            }
+            return Math.max(TimeUnit.MILLISECONDS.toNanos(1), (long) (minutes * 60e9));
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package org.symphonykernel.ai;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.anthropic.AnthropicChatOptions;
+import org.springframework.ai.anthropic.api.AnthropicCacheOptions;
+import org.springframework.ai.anthropic.api.AnthropicCacheStrategy;
+import org.springframework.ai.azure.openai.AzureOpenAiChatModel;
 import org.springframework.ai.azure.openai.AzureOpenAiChatOptions;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.ChatClient.ChatClientRequestSpec;
@@ -14,20 +22,33 @@ import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.content.Media;
+import org.springframework.ai.model.azure.openai.autoconfigure.AzureOpenAIClientBuilderCustomizer;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MimeTypeUtils;
 import org.symphonykernel.LLMRequest;
+import org.symphonykernel.Priority;
 import org.symphonykernel.config.AzureOpenAIConnectionProperties;
+import org.symphonykernel.config.Constants;
 import org.symphonykernel.core.IAIClient;
 
+import com.azure.ai.openai.OpenAIClientBuilder;
+import com.azure.core.credential.AzureKeyCredential;
+
+import io.micrometer.observation.ObservationRegistry;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * StringAI implementation of the AI client interface.
@@ -53,15 +74,80 @@ public class StringAIHelper extends AIClientBase implements IAIClient {
     @Autowired(required = false)
     @Qualifier("anthropicChatModel")
     private ChatModel anthropicChatModel;
+
+    @Autowired
+    private ToolCallbackRegistry toolCallbackRegistry;
+
+    @Autowired
+    private LLMResponseCache responseCache;
+
+    @Autowired
+    private ConcurrencyLimiterRegistry concurrencyLimiters;
+
+    @Autowired
+    private QuotaScheduler quotaScheduler;
+
+    @Autowired
+    private DeploymentRouter deploymentRouter;
+
+    @Autowired
+    private ObjectProvider<AzureOpenAIClientBuilderCustomizer> clientBuilderCustomizers;
+
+    @Autowired
+    private ObjectProvider<ToolCallingManager> toolCallingManager;
+
+    @Autowired
+    private ObjectProvider<ObservationRegistry> observationRegistry;
+
+    @Autowired
+    private PromptCacheMetrics promptCacheMetrics;
+
+    @Value("${symphony.llm.prompt.cache.enabled:true}")
+    private boolean promptCacheEnabled;
+
+    @Value("${symphony.llm.prompt.cache.min.chars:4096}")
+    private int promptCacheMinChars;
     RetryTemplate retryTemplate;
 
+    private final Map<String, ModelProfile> profiles = new ConcurrentHashMap<>();
+    private final Map<List<String>, ChatModel> endpointChatModels = new ConcurrentHashMap<>();
+
+    /**
+     * The client and options of one model, built on first use.
+     * <p>
+     * The options are never handed out: the chat client sets the tool callbacks of a request
+     * on the options of its prompt, so every prompt gets its own copy. Anthropic models also
+     * keep options that mark the system prompt for the provider's prompt cache.
+     * </p>
+     */
+    private static final class ModelProfile {
+        private final ChatClient client;
+        private final ChatOptions options;
+        private final ChatOptions cachedOptions;
+        private final boolean anthropic;
+        private final Double temperature;
+
+        ModelProfile(ChatClient client, ChatOptions options, ChatOptions cachedOptions, boolean anthropic, Double temperature) {
+            this.client = client;
+            this.options = options;
+            this.cachedOptions = cachedOptions;
+            this.anthropic = anthropic;
+            this.temperature = temperature;
+        }
+
+        ChatOptions newOptions(boolean cached) {
+            return (cached && cachedOptions != null ? cachedOptions : options).copy();
+        }
+    }
+
     /**
      * Constructs a StringAIHelper with the specified connection properties.
      *
      * @param connectionProperties the Azure OpenAI connection configuration
+     * @param tokenCounter         the shared token counter
      */
-    public StringAIHelper(AzureOpenAIConnectionProperties connectionProperties) {
-        super(connectionProperties);
+    public StringAIHelper(AzureOpenAIConnectionProperties connectionProperties, TokenCounter tokenCounter) {
+        super(connectionProperties, tokenCounter);
         logger.info("AI processor : StringAI");
     }
 
@@ -84,7 +170,8 @@ public class StringAIHelper extends AIClientBase implements IAIClient {
 
     /**
      * Executes the given LLM request by building a prompt and invoking the chat
-     * model.
+     * model. Deterministic requests are answered from the {@link LLMResponseCache}
+     * when it is enabled.
      *
      * @param request the LLM request containing system message, user prompt,
      *                tools, and model information
@@ -96,28 +183,105 @@ public class StringAIHelper extends AIClientBase implements IAIClient {
     @SuppressWarnings("unchecked")
     public String execute(LLMRequest request) {
 
-        return (String) processPromptString(request, this::callLLM);
+        return responseCache.get(request, resolveTemperature(request.getModelName()),
+                () -> (String) processPromptString(request, this::callLLM));
     }
 
-    private String callLLM(LLMRequest request) {
-         ChatClientRequestSpec client = getClient(request);
-        return client.call().content();      
+    /**
+     * Executes the request's system message over chunks produced incrementally, reducing
+     * the per-chunk answers into one response.
+     *
+     * @param request       the LLM request containing system message, tools and model
+     * @param chunkProducer pushes the chunks to the consumer it is given
+     * @return the AI-generated response text
+     */
+    @Override
+    public String executeChunks(LLMRequest request, Consumer<Consumer<String>> chunkProducer) {
+        return executeChunkStream(request, chunkProducer, this::callLLM);
+    }
 
+    private String callLLM(LLMRequest request) {
+        return deploymentRouter.call(resolveDeployment(request.getModelName()), deployment -> {
+            ConcurrencyLimiterRegistry.Slot slot = new ConcurrencyLimiterRegistry.Slot();
+            ChatClientRequestSpec client = getClient(request, deployment, slot);
+            QuotaScheduler.Reservation reservation = quotaScheduler.admit(deployment, Priority.current(), () -> estimatePromptTokens(request));
+            ChatResponse response = concurrencyLimiters.call(deployment, slot, () -> client.call().chatResponse());
+            reservation.reconcile(response);
+            promptCacheMetrics.record(deployment, response);
+            return getText(response);
+        });
     }
 
     private Flux<String> callLLMAsync(LLMRequest request) {
-         ChatClientRequestSpec client = getClient(request);
-        return client.stream().content();      
+        // The stream is subscribed on another thread, so take the priority of the caller now
+        Priority priority = Priority.current();
+        return deploymentRouter.stream(resolveDeployment(request.getModelName()), deployment -> {
+            ConcurrencyLimiterRegistry.Slot slot = new ConcurrencyLimiterRegistry.Slot();
+            ChatClientRequestSpec client = getClient(request, deployment, slot);
+            return Flux.defer(() -> {
+                QuotaScheduler.Reservation reservation = quotaScheduler.admit(deployment, priority, () -> estimatePromptTokens(request));
+                ChatResponse[] last = new ChatResponse[1];
+                return concurrencyLimiters.stream(deployment, priority, slot, () -> client.stream().chatResponse())
+                        .doOnNext(response -> last[0] = response)
+                        .doOnComplete(() -> {
+                            reservation.reconcile(last[0]);
+                            promptCacheMetrics.record(deployment, last[0]);
+                        })
+                        .mapNotNull(StringAIHelper::getText);
+            }).subscribeOn(Schedulers.boundedElastic());
+        });
+    }
 
+    private static String getText(ChatResponse response) {
+        if (response == null || response.getResult() == null || response.getResult().getOutput() == null) {
+            return null;
+        }
+        return response.getResult().getOutput().getText();
+    }
+
+    private int estimatePromptTokens(LLMRequest request) {
+        String model = request.getModelName();
+        return tokenCounter.count(model, request.getSystemMessage()) + tokenCounter.count(model, request.getUserPrompt());
     }
     @Override
     public Flux<String> streamExecute(LLMRequest request) {
-        return (Flux<String>) processPromptString(request, this::callLLMAsync);
+        return processPromptStream(request, this::callLLM, this::callLLMAsync);
     }
 
-    private Prompt createPrompt(String systemPrompt, String userInput, String model) {
+    /**
+     * Builds the prompt of a request.
+     * <p>
+     * A system prompt containing {@link Constants#PROMPT_CACHE_BREAK} is split there into a
+     * stable prefix, sent first as its own system message so that provider prompt caches
+     * can match it across requests, and a dynamic suffix sent after it. Anthropic caches
+     * only the system parameter as a whole, so there the suffix moves in front of the user
+     * input and the prefix is marked for caching once it is at least
+     * {@code symphony.llm.prompt.cache.min.chars} long; Azure OpenAI caches matching
+     * prefixes on its own and gets the suffix as a second system message.
+     * </p>
+     */
+    private Prompt createPrompt(String systemPrompt, String userInput, ModelProfile profile) {
 
         List<Message> messages = new ArrayList<>();
+        boolean cached = false;
+
+        int cacheBreak = systemPrompt == null ? -1 : systemPrompt.indexOf(Constants.PROMPT_CACHE_BREAK);
+        if (cacheBreak >= 0) {
+            String prefix = systemPrompt.substring(0, cacheBreak);
+            String suffix = systemPrompt.substring(cacheBreak + Constants.PROMPT_CACHE_BREAK.length()).replace(Constants.PROMPT_CACHE_BREAK, "");
+            if (!promptCacheEnabled || prefix.isBlank()) {
+                systemPrompt = prefix + suffix;
+            } else {
+                systemPrompt = null;
+                messages.add(new SystemMessage(prefix));
+                if (profile.anthropic) {
+                    userInput = join(suffix, userInput);
+                    cached = prefix.length() >= promptCacheMinChars && userInput != null;
+                } else if (!suffix.isBlank()) {
+                    messages.add(new SystemMessage(suffix));
+                }
+            }
+        }
 
         if (systemPrompt != null && !systemPrompt.isBlank()) {
             messages.add(new SystemMessage(systemPrompt));
@@ -132,8 +296,7 @@ public class StringAIHelper extends AIClientBase implements IAIClient {
             throw new RuntimeException("Cannot create prompt with empty messages");
         }
 
-        String provider = conProperties.getProvider(model);
-        if (provider != null && provider.equalsIgnoreCase("anthropic")) {
+        if (profile.anthropic) {
 
             // Anthropic API requires at least one UserMessage in the messages array;
             // SystemMessage is sent separately as the "system" parameter.
@@ -148,25 +311,31 @@ public class StringAIHelper extends AIClientBase implements IAIClient {
                 messages.clear();
                 messages.add(new UserMessage(systemText));
             }
+        }
+        return new Prompt(messages, profile.newOptions(cached));
+    }
 
-            var chatOptions = resolveOptionsForAnthropic(model);
-            return new Prompt(messages, chatOptions);
-        } else {
-
-            var chatOptions = resolveOptionsForAzureOpenAi(model);
-            return new Prompt(messages, chatOptions);
-
+    private static String join(String first, String second) {
+        boolean hasFirst = first != null && !first.isBlank();
+        boolean hasSecond = second != null && !second.isBlank();
+        if (hasFirst && hasSecond) {
+            return first.strip() + System.lineSeparator() + System.lineSeparator() + second;
         }
+        return hasFirst ? first.strip() : hasSecond ? second : null;
     }
 
-    private ChatClientRequestSpec getClient(LLMRequest request) {
-        Prompt prompt = createPrompt(request.getSystemMessage(), request.getUserPrompt(), request.getModelName());
-        var client = getClient(prompt, request.getTools());
+    private ChatClientRequestSpec getClient(LLMRequest request, String deployment, ConcurrencyLimiterRegistry.Slot slot) {
+        ModelProfile profile = getProfile(deployment);
+        Prompt prompt = createPrompt(request.getSystemMessage(), request.getUserPrompt(), profile);
+        var client = getClient(profile, prompt, request.getTools());
+        if (request.getTools() != null && request.getTools().length > 0) {
+            // Lets the tool calling manager free the deployment slot while the tools run
+            client = client.toolContext(Map.of(ConcurrencyLimiterRegistry.PERMIT_CONTEXT_KEY, slot));
+        }
         return client;
     }
 
-    private ChatModel resolveChatModel(Prompt prompt) {
-        boolean isAnthropic = prompt.getOptions() instanceof AnthropicChatOptions;
+    private ChatModel resolveChatModel(boolean isAnthropic) {
         ChatModel model = isAnthropic ? anthropicChatModel : azureOpenAiChatModel;
         if (model == null) {
             throw new IllegalStateException(
@@ -175,22 +344,97 @@ public class StringAIHelper extends AIClientBase implements IAIClient {
         return model;
     }
 
-    private ChatClientRequestSpec getClient(Prompt prompt, Object[] tools) {
-        ChatModel chatModel = resolveChatModel(prompt);
-        var client = ChatClient.create(chatModel).prompt(prompt);
+    private ChatClientRequestSpec getClient(ModelProfile profile, Prompt prompt, Object[] tools) {
+        var client = profile.client.prompt(prompt);
         if (tools != null && tools.length > 0) {
             logger.info("Processing with tools: {}", tools.length);
-            client = client.tools(tools);
+            client = client.toolCallbacks(toolCallbackRegistry.getToolCallbacks(tools));
         }
         return client;
     }
 
-    private AzureOpenAiChatOptions resolveOptionsForAzureOpenAi(String modelName) {
+    private String resolveDeployment(String modelName) {
         if (modelName == null || modelName.isBlank() || modelName.equalsIgnoreCase(DEFAULT_MODEL)) {
-            // no override – use model & options configured on the ChatModel bean
-            modelName = conProperties.getDeploymentName();
+            return conProperties.getDeploymentName();
+        }
+        return modelName;
+    }
+
+    private Double resolveTemperature(String modelName) {
+        String deployment = resolveDeployment(modelName);
+        if (deploymentRouter.isPool(deployment)) {
+            // A pool may mix deployments; only a temperature set on the alias itself applies
+            return conProperties.getTemperature(deployment);
+        }
+        return getProfile(modelName).temperature;
+    }
+
+    /**
+     * Gets the client and options of a model, building them from the configuration on
+     * first use.
+     *
+     * @param modelName the model name, or the default model
+     * @return the profile of the model
+     */
+    private ModelProfile getProfile(String modelName) {
+        String deployment = resolveDeployment(modelName);
+        return profiles.computeIfAbsent(deployment == null ? DEFAULT_MODEL : deployment, key -> createProfile(deployment));
+    }
+
+    private ModelProfile createProfile(String modelName) {
+        String provider = conProperties.getProvider(modelName);
+        boolean anthropic = provider != null && provider.equalsIgnoreCase("anthropic");
+        ChatOptions options = anthropic ? resolveOptionsForAnthropic(modelName, false) : resolveOptionsForAzureOpenAi(modelName);
+        ChatOptions cachedOptions = anthropic ? resolveOptionsForAnthropic(modelName, true) : null;
+        ChatClient client = ChatClient.create(anthropic ? resolveChatModel(true) : resolveAzureChatModel(modelName));
+        logger.info("Chat client for model {} created ({})", modelName, anthropic ? "anthropic" : "azureOpenAi");
+        return new ModelProfile(client, options, cachedOptions, anthropic, conProperties.getTemperature(modelName));
+    }
+
+    /**
+     * Drops the clients and options built so far, so the next request of each model
+     * rebuilds them from the current configuration. Call after changing the
+     * {@code client.azureopenai.*} properties at runtime.
+     */
+    public void refreshModels() {
+        profiles.clear();
+        endpointChatModels.clear();
+        deploymentRouter.refresh();
+        tokenCounter.refresh();
+        logger.info("Chat clients and options will be rebuilt from the configuration");
+    }
+
+    /**
+     * Gets the Azure OpenAI chat model of a deployment. Deployments with an endpoint or key
+     * of their own ({@code client.azureopenai.{model}.options.endpoint} and {@code .key}),
+     * e.g. in another region, get a chat model per endpoint and key, configured like the
+     * default one.
+     */
+    private ChatModel resolveAzureChatModel(String modelName) {
+        String endpoint = conProperties.getEndpoint(modelName);
+        String apiKey = conProperties.getKey(modelName);
+        if (endpoint == null || endpoint.isBlank()
+                || (endpoint.equals(conProperties.getEndpoint()) && Objects.equals(apiKey, conProperties.getKey()))) {
+            return resolveChatModel(false);
         }
+        return endpointChatModels.computeIfAbsent(Arrays.asList(endpoint, apiKey), key -> {
+            String url = key.get(0);
+            OpenAIClientBuilder clientBuilder = new OpenAIClientBuilder()
+                    .endpoint(url)
+                    .credential(new AzureKeyCredential(key.get(1)));
+            clientBuilderCustomizers.orderedStream().forEach(customizer -> customizer.customize(clientBuilder));
+            AzureOpenAiChatModel.Builder builder = AzureOpenAiChatModel.builder().openAIClientBuilder(clientBuilder);
+            if (azureOpenAiChatModel != null && azureOpenAiChatModel.getDefaultOptions() instanceof AzureOpenAiChatOptions defaults) {
+                builder.defaultOptions(defaults.copy());
+            }
+            toolCallingManager.ifUnique(builder::toolCallingManager);
+            observationRegistry.ifUnique(builder::observationRegistry);
+            logger.info("Azure OpenAI chat model for endpoint {} created", url);
+            return builder.build();
+        });
+    }
 
+    private AzureOpenAiChatOptions resolveOptionsForAzureOpenAi(String modelName) {
         Integer maxCompletionTokens = conProperties.getMaxCompletionTokens(modelName);
         Integer maxTokens = conProperties.getMaxTokens(modelName);
         Double temperature = conProperties.getTemperature(modelName);       
@@ -208,12 +452,7 @@ public class StringAIHelper extends AIClientBase implements IAIClient {
 
         return builder.build();
     }
-    private AnthropicChatOptions resolveOptionsForAnthropic(String modelName) {
-        if (modelName == null || modelName.isBlank() || modelName.equalsIgnoreCase(DEFAULT_MODEL)) {
-            // no override – use model & options configured on the ChatModel bean
-            modelName = conProperties.getDeploymentName();
-        }
-
+    private AnthropicChatOptions resolveOptionsForAnthropic(String modelName, boolean cacheSystemPrompt) {
         Integer maxTokens = conProperties.getMaxTokens(modelName);
         Double temperature = conProperties.getTemperature(modelName);       
         AnthropicChatOptions.Builder builder = AnthropicChatOptions.builder().model(modelName);
@@ -226,6 +465,10 @@ public class StringAIHelper extends AIClientBase implements IAIClient {
             builder.temperature(temperature);
         }
 
+        if (cacheSystemPrompt) {
+            builder.cacheOptions(AnthropicCacheOptions.builder().strategy(AnthropicCacheStrategy.SYSTEM_ONLY).build());
+        }
+
         return builder.build();
     }
 
@@ -250,9 +493,16 @@ public class StringAIHelper extends AIClientBase implements IAIClient {
                 .media(new Media(MimeTypeUtils.APPLICATION_OCTET_STREAM, new ByteArrayResource(imageBytes)))
                 .build();
 
-        Prompt imagePrompt = new Prompt(userMessage, resolveOptionsForAzureOpenAi(DEFAULT_MODEL));
-        var client = getClient(imagePrompt, null);
-        return client.call().content();
+        return deploymentRouter.call(resolveDeployment(DEFAULT_MODEL), deployment -> {
+            ModelProfile profile = getProfile(deployment);
+            Prompt imagePrompt = new Prompt(userMessage, profile.newOptions(false));
+            var client = getClient(profile, imagePrompt, null);
+            QuotaScheduler.Reservation reservation = quotaScheduler.admit(deployment, Priority.current(), () -> tokenCounter.count(DEFAULT_MODEL, systemMessage));
+            ChatResponse response = concurrencyLimiters.call(deployment, null, () -> client.call().chatResponse());
+            reservation.reconcile(response);
+            promptCacheMetrics.record(deployment, response);
+            return getText(response);
+        });
     }
 
 }
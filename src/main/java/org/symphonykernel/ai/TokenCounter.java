@@ -0,0 +1,261 @@
+package org.symphonykernel.ai;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.stereotype.Component;
+import org.symphonykernel.config.AzureOpenAIConnectionProperties;
+
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Counts prompt tokens with the HuggingFace tokenizer configured for each model.
+ * <p>
+ * The tokenizer is taken from {@code client.azureopenai.{model}.options.tokenizer}, falling
+ * back to {@code client.azureopenai.tokenizer}; it may be a HuggingFace hub name or the
+ * path of a local {@code tokenizer.json}. Every configured tokenizer is loaded once at
+ * startup and shared by all clients; a tokenizer that cannot be loaded fails the startup
+ * when {@code symphony.llm.tokenizer.required} is set, otherwise it is logged and retried
+ * in the background every {@code symphony.llm.tokenizer.retry.ms}. Requests never load a
+ * tokenizer themselves: until it is loaded, texts are measured with an estimate of
+ * {@value #CHARS_PER_TOKEN} characters per token.
+ * </p>
+ */
+@Component
+public class TokenCounter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenCounter.class);
+    static final int CHARS_PER_TOKEN = 4;
+    private static final String TOKENIZER_PROPERTY = ".options.tokenizer";
+
+    @Value("${symphony.llm.tokenizer.required:false}")
+    private boolean required;
+
+    @Value("${symphony.llm.tokenizer.retry.ms:300000}")
+    private long retryMs = 300000;
+
+    private final AzureOpenAIConnectionProperties conProperties;
+    private final Environment environment;
+    private final Map<String, HuggingFaceTokenizer> tokenizers = new ConcurrentHashMap<>();
+    private final Map<String, Long> retryAtNanos = new ConcurrentHashMap<>();
+    private final Map<String, Optional<String>> modelTokenizers = new ConcurrentHashMap<>();
+    private final Map<String, Integer> modelInputTokens = new ConcurrentHashMap<>();
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "symphony-tokenizer-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates a token counter for the configured models.
+     *
+     * @param connectionProperties the connection properties naming the tokenizers
+     * @param environment          the environment holding the per-model tokenizers, optional
+     */
+    public TokenCounter(AzureOpenAIConnectionProperties connectionProperties, Environment environment) {
+        this.conProperties = connectionProperties;
+        this.environment = environment;
+    }
+
+    /**
+     * Loads the tokenizers of all configured models.
+     *
+     * @throws IllegalStateException if a tokenizer cannot be loaded and tokenizers are required
+     */
+    @PostConstruct
+    public void init() {
+        for (String name : configuredTokenizers()) {
+            if (!load(name)) {
+                if (required) {
+                    throw new IllegalStateException("Could not load tokenizer " + name);
+                }
+                retryAtNanos.put(name, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryMs));
+            }
+        }
+    }
+
+    /**
+     * Counts the tokens of a text for the given model.
+     *
+     * @param model the model name, or null for the default model
+     * @param text  the text to measure
+     * @return the number of tokens
+     */
+    public int count(String model, String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        HuggingFaceTokenizer tokenizer = getTokenizer(model);
+        if (tokenizer == null) {
+            return estimate(text);
+        }
+        return tokenizer.encode(text, false, false).getIds().length;
+    }
+
+    /**
+     * Gets a function measuring texts in tokens of the given model.
+     *
+     * @param model the model name, or null for the default model
+     * @return the measuring function
+     */
+    public ToIntFunction<String> forModel(String model) {
+        return text -> count(model, text);
+    }
+
+    /**
+     * Checks whether the given model is measured with a real tokenizer.
+     *
+     * @param model the model name, or null for the default model
+     * @return true if a tokenizer is configured and loaded
+     */
+    public boolean hasTokenizer(String model) {
+        return getTokenizer(model) != null;
+    }
+
+    /**
+     * Checks whether prompts of the given model are limited in tokens rather than characters.
+     *
+     * @param model the model name, or null for the default model
+     * @return true if the model has a token limit and a loaded tokenizer
+     */
+    public boolean usesTokens(String model) {
+        return getMaxInputTokens(model) > 0 && hasTokenizer(model);
+    }
+
+    /**
+     * Gets the maximum input tokens of the given model, read from the configuration once.
+     *
+     * @param model the model name, or null for the default model
+     * @return the maximum input tokens, or 0 if not defined
+     */
+    public int getMaxInputTokens(String model) {
+        return modelInputTokens.computeIfAbsent(key(model), key -> conProperties.getMaxInputTokens(model));
+    }
+
+    /**
+     * Drops the tokenizer names and limits read so far, so they are read again from the
+     * current configuration. Tokenizers that are not loaded yet are loaded in the background.
+     */
+    public void refresh() {
+        modelTokenizers.clear();
+        modelInputTokens.clear();
+    }
+
+    private HuggingFaceTokenizer getTokenizer(String model) {
+        String name = modelTokenizers.computeIfAbsent(key(model), key -> {
+            String tokenizer = conProperties.getTokenizer(model);
+            return tokenizer == null || tokenizer.isBlank() ? Optional.empty() : Optional.of(tokenizer.trim());
+        }).orElse(null);
+        if (name == null) {
+            return null;
+        }
+        HuggingFaceTokenizer tokenizer = tokenizers.get(name);
+        if (tokenizer == null) {
+            scheduleLoad(name);
+        }
+        return tokenizer;
+    }
+
+    private static String key(String model) {
+        return model == null ? "" : model;
+    }
+
+    /**
+     * Loads a tokenizer on the loader thread, at most once per retry interval.
+     */
+    private void scheduleLoad(String name) {
+        long now = System.nanoTime();
+        Long due = retryAtNanos.get(name);
+        if (due != null && now - due < 0) {
+            return;
+        }
+        long next = now + TimeUnit.MILLISECONDS.toNanos(retryMs);
+        boolean claimed = due == null ? retryAtNanos.putIfAbsent(name, next) == null : retryAtNanos.replace(name, due, next);
+        if (claimed && !loader.isShutdown()) {
+            loader.execute(() -> load(name));
+        }
+    }
+
+    private boolean load(String name) {
+        try {
+            HuggingFaceTokenizer.Builder builder = HuggingFaceTokenizer.builder()
+                    .optAddSpecialTokens(false)
+                    .optTruncation(false);
+            Path path = Path.of(name);
+            if (Files.exists(path)) {
+                builder.optTokenizerPath(path);
+            } else {
+                builder.optTokenizerName(name);
+            }
+            HuggingFaceTokenizer tokenizer = builder.build();
+            HuggingFaceTokenizer previous = tokenizers.putIfAbsent(name, tokenizer);
+            if (previous != null) {
+                tokenizer.close();
+            }
+            retryAtNanos.remove(name);
+            logger.info("Loaded tokenizer {}", name);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Could not load tokenizer {}, estimating {} chars per token: {}", name, CHARS_PER_TOKEN, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Collects the global tokenizer and the tokenizers of all models in the environment.
+     */
+    private Set<String> configuredTokenizers() {
+        Set<String> names = new LinkedHashSet<>();
+        String global = conProperties.getTokenizer();
+        if (global != null && !global.isBlank()) {
+            names.add(global.trim());
+        }
+        if (environment instanceof ConfigurableEnvironment configurable) {
+            String prefix = AzureOpenAIConnectionProperties.CONFIG_PREFIX + ".";
+            for (PropertySource<?> source : configurable.getPropertySources()) {
+                if (source instanceof EnumerablePropertySource<?> enumerable) {
+                    for (String property : enumerable.getPropertyNames()) {
+                        if (property.startsWith(prefix) && property.endsWith(TOKENIZER_PROPERTY)) {
+                            String name = environment.getProperty(property);
+                            if (name != null && !name.isBlank()) {
+                                names.add(name.trim());
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    private static int estimate(String text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /**
+     * Stops background loading and releases the native resources of the loaded tokenizers.
+     */
+    @Override
+    public void close() {
+        loader.shutdownNow();
+        tokenizers.values().forEach(HuggingFaceTokenizer::close);
+        tokenizers.clear();
+    }
+}
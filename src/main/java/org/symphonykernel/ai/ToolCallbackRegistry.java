@@ -0,0 +1,125 @@
+package org.symphonykernel.ai;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolCallResultConverter;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+import org.springframework.ai.tool.method.MethodToolCallback;
+import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+import org.springframework.ai.tool.support.ToolDefinitions;
+import org.springframework.ai.tool.support.ToolUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Builds Spring AI tool callbacks for plugin objects without rescanning them on every request.
+ * <p>
+ * Discovering the {@code @Tool} methods of a class and generating their JSON input schemas is
+ * done once per class; each request only binds the cached definitions to the tool instance
+ * it uses, so prototype and per-request plugin instances share the same schemas. Methods are
+ * selected and bound the same way as {@link MethodToolCallbackProvider} does. Objects that
+ * already are a {@link ToolCallback} or {@link ToolCallbackProvider} are passed through.
+ * </p>
+ */
+@Component
+public class ToolCallbackRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolCallbackRegistry.class);
+
+    /**
+     * A {@code @Tool} method with its precomputed definition and metadata.
+     */
+    private static class ToolMethod {
+        private final Method method;
+        private final ToolDefinition definition;
+        private final ToolMetadata metadata;
+        private final ToolCallResultConverter resultConverter;
+
+        ToolMethod(Method method) {
+            this.method = method;
+            this.definition = ToolDefinitions.from(method);
+            this.metadata = ToolMetadata.from(method);
+            this.resultConverter = ToolUtils.getToolCallResultConverter(method);
+        }
+    }
+
+    private final Map<Class<?>, List<ToolMethod>> toolMethods = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the tool callbacks for the given tool objects.
+     *
+     * @param tools the tool objects attached to a request
+     * @return the tool callbacks bound to those objects
+     * @throws IllegalStateException if two tools share the same name
+     */
+    public ToolCallback[] getToolCallbacks(Object[] tools) {
+        List<ToolCallback> callbacks = new ArrayList<>();
+        for (Object tool : tools) {
+            if (tool instanceof ToolCallback callback) {
+                callbacks.add(callback);
+            } else if (tool instanceof ToolCallbackProvider provider) {
+                callbacks.addAll(Arrays.asList(provider.getToolCallbacks()));
+            } else if (tool != null) {
+                for (ToolMethod toolMethod : getToolMethods(tool)) {
+                    callbacks.add(MethodToolCallback.builder()
+                            .toolDefinition(toolMethod.definition)
+                            .toolMetadata(toolMethod.metadata)
+                            .toolMethod(toolMethod.method)
+                            .toolObject(tool)
+                            .toolCallResultConverter(toolMethod.resultConverter)
+                            .build());
+                }
+            }
+        }
+        Set<String> names = new HashSet<>();
+        for (ToolCallback callback : callbacks) {
+            if (!names.add(callback.getToolDefinition().name())) {
+                throw new IllegalStateException("Multiple tools with the same name: " + callback.getToolDefinition().name());
+            }
+        }
+        return callbacks.toArray(new ToolCallback[0]);
+    }
+
+    private List<ToolMethod> getToolMethods(Object tool) {
+        Class<?> clazz = AopUtils.isAopProxy(tool) ? AopUtils.getTargetClass(tool) : tool.getClass();
+        return toolMethods.computeIfAbsent(clazz, c -> {
+            List<ToolMethod> methods = Arrays.stream(ReflectionUtils.getDeclaredMethods(c))
+                    .filter(method -> AnnotationUtils.findAnnotation(method, Tool.class) != null)
+                    .filter(method -> !isFunctionalType(method))
+                    .filter(ReflectionUtils.USER_DECLARED_METHODS::matches)
+                    .map(ToolMethod::new)
+                    .toList();
+            logger.info("Built {} tool definition(s) for {}", methods.size(), c.getName());
+            return methods;
+        });
+    }
+
+    private static boolean isFunctionalType(Method method) {
+        boolean functional = ClassUtils.isAssignable(Function.class, method.getReturnType())
+                || ClassUtils.isAssignable(Supplier.class, method.getReturnType())
+                || ClassUtils.isAssignable(Consumer.class, method.getReturnType());
+        if (functional) {
+            logger.warn("Method {} is annotated with @Tool but returns a functional type and is ignored", method.getName());
+        }
+        return functional;
+    }
+}
@@ -16,6 +16,10 @@ public class AzureOpenAIConnectionProperties {
     private double temperature;
     private int maxParallel;
     private int maxProcessingTime=300;
+    private String tokenizer;
+    private int maxInputTokens;
+    private int tokensPerMinute;
+    private int requestsPerMinute;
     /**
      * Azure OpenAI API endpoint.From the Azure AI OpenAI at 'Resource
      * Management' select `Keys and Endpoint` and find it on the right side.
@@ -204,6 +208,78 @@ public class AzureOpenAIConnectionProperties {
         this.library = library;
     }
 
+    /**
+     * Gets the HuggingFace tokenizer used to count prompt tokens.
+     * 
+     * @return the tokenizer name on the HuggingFace hub or a local tokenizer.json path
+     */
+    public String getTokenizer() {
+        return tokenizer;
+    }
+
+    /**
+     * Sets the HuggingFace tokenizer used to count prompt tokens.
+     * 
+     * @param tokenizer the tokenizer name on the HuggingFace hub or a local tokenizer.json path
+     */
+    public void setTokenizer(String tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * Gets the maximum number of prompt tokens sent in one request.
+     * 
+     * @return the maximum input tokens, or 0 to use the character limit
+     */
+    public int getMaxInputTokens() {
+        return maxInputTokens;
+    }
+
+    /**
+     * Sets the maximum number of prompt tokens sent in one request.
+     * 
+     * @param maxInputTokens the maximum input tokens, or 0 to use the character limit
+     */
+    public void setMaxInputTokens(int maxInputTokens) {
+        this.maxInputTokens = maxInputTokens;
+    }
+
+    /**
+     * Gets the tokens-per-minute quota of the deployments.
+     * 
+     * @return the quota, or 0 if not enforced
+     */
+    public int getTokensPerMinute() {
+        return tokensPerMinute;
+    }
+
+    /**
+     * Sets the tokens-per-minute quota of the deployments.
+     * 
+     * @param tokensPerMinute the quota, or 0 if not enforced
+     */
+    public void setTokensPerMinute(int tokensPerMinute) {
+        this.tokensPerMinute = tokensPerMinute;
+    }
+
+    /**
+     * Gets the requests-per-minute quota of the deployments.
+     * 
+     * @return the quota, or 0 if not enforced
+     */
+    public int getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    /**
+     * Sets the requests-per-minute quota of the deployments.
+     * 
+     * @param requestsPerMinute the quota, or 0 if not enforced
+     */
+    public void setRequestsPerMinute(int requestsPerMinute) {
+        this.requestsPerMinute = requestsPerMinute;
+    }
+
     @Autowired
     private Environment environment;
 
@@ -267,6 +343,42 @@ public class AzureOpenAIConnectionProperties {
         }
         return url;     
     }
+    /**
+     * Returns the API key of the given deployment.
+     * <p>
+     * Looks for {@code client.azureopenai.{modelName}.options.key}
+     * first, and if not found falls back to the global {@code key}.
+     *
+     * @param modelName the logical / deployment model name
+     * @return the API key for this deployment
+     */
+    public String getKey(String modelName) {
+        String apiKey = null;
+        if (modelName != null && !modelName.isBlank() && environment != null) {
+            apiKey = environment.getProperty( CONFIG_PREFIX + "." + modelName + ".options.key", String.class);           
+        }
+        if(apiKey == null || apiKey.isBlank()) {
+            apiKey = this.key;
+        }
+        return apiKey;     
+    }
+    /**
+     * Returns the deployments the given model alias is spread across.
+     * <p>
+     * Reads {@code client.azureopenai.{modelName}.options.deployments}, a comma separated
+     * list of deployment names with optional weights, e.g. {@code gpt4o-east:3,gpt4o-west:1}.
+     * Each deployment is configured as a model of its own.
+     *
+     * @param modelName the model alias
+     * @return the deployments of this alias, or {@code null} if it is a single deployment
+     */
+    public String getDeployments(String modelName) {
+        String deployments = null;
+        if (modelName != null && !modelName.isBlank() && environment != null) {
+            deployments = environment.getProperty( CONFIG_PREFIX + "." + modelName + ".options.deployments", String.class);           
+        }
+        return deployments;     
+    }
     public String getProvider(String modelName) {
         String provider = null;
         if (modelName != null && !modelName.isBlank() && environment != null) {
@@ -274,4 +386,71 @@ public class AzureOpenAIConnectionProperties {
         }        
         return provider;     
     }
+    /**
+     * Returns the tokenizer configured for the given model name.
+     * <p>
+     * Looks for {@code client.azureopenai.{modelName}.options.tokenizer}
+     * first, and if not found falls back to the global {@code tokenizer}.
+     *
+     * @param modelName the logical / deployment model name
+     * @return the tokenizer for this model, or {@code null} if not defined
+     */
+    public String getTokenizer(String modelName) {
+        String name = null;
+        if (modelName != null && !modelName.isBlank() && environment != null) {
+            name = environment.getProperty( CONFIG_PREFIX + "." + modelName + ".options.tokenizer", String.class);           
+        }
+        if(name == null || name.isBlank()) {
+            name = this.tokenizer;
+        }
+        return name;     
+    }
+    /**
+     * Returns the max input tokens configured for the given model name.
+     * <p>
+     * Looks for {@code client.azureopenai.{modelName}.options.maxInputTokens}
+     * first, and if not found falls back to the global {@code maxInputTokens}.
+     *
+     * @param modelName the logical / deployment model name
+     * @return the max input tokens for this model, or 0 if not defined
+     */
+    public int getMaxInputTokens(String modelName) {
+        Integer tokens = null;
+        if (modelName != null && !modelName.isBlank() && environment != null) {
+            tokens = environment.getProperty( CONFIG_PREFIX + "." + modelName + ".options.maxInputTokens", Integer.class);           
+        }
+        return tokens != null ? tokens : this.maxInputTokens;     
+    }
+    /**
+     * Returns the tokens-per-minute quota of the given deployment.
+     * <p>
+     * Looks for {@code client.azureopenai.{modelName}.options.tokensPerMinute}
+     * first, and if not found falls back to the global {@code tokensPerMinute}.
+     *
+     * @param modelName the logical / deployment model name
+     * @return the quota for this deployment, or 0 if not enforced
+     */
+    public int getTokensPerMinute(String modelName) {
+        Integer tpm = null;
+        if (modelName != null && !modelName.isBlank() && environment != null) {
+            tpm = environment.getProperty( CONFIG_PREFIX + "." + modelName + ".options.tokensPerMinute", Integer.class);           
+        }
+        return tpm != null ? tpm : this.tokensPerMinute;     
+    }
+    /**
+     * Returns the requests-per-minute quota of the given deployment.
+     * <p>
+     * Looks for {@code client.azureopenai.{modelName}.options.requestsPerMinute}
+     * first, and if not found falls back to the global {@code requestsPerMinute}.
+     *
+     * @param modelName the logical / deployment model name
+     * @return the quota for this deployment, or 0 if not enforced
+     */
+    public int getRequestsPerMinute(String modelName) {
+        Integer rpm = null;
+        if (modelName != null && !modelName.isBlank() && environment != null) {
+            rpm = environment.getProperty( CONFIG_PREFIX + "." + modelName + ".options.requestsPerMinute", Integer.class);           
+        }
+        return rpm != null ? rpm : this.requestsPerMinute;     
+    }
 }
@@ -10,4 +10,31 @@ public class Constants {
 	public final static String CACHE_NAME = "cSCPCache";
 	
     public static final String LOGGER_TRACE_ID = "LoggerTraceId";
+
+    /**
+     * The MDC key holding the {@link org.symphonykernel.Priority} of LLM calls made by the thread.
+     */
+    public static final String LLM_PRIORITY = "LLMPriority";
+
+    /**
+     * Marks where the stable, cacheable part of a system prompt ends and the data that
+     * changes per request begins.
+     */
+    public static final String PROMPT_CACHE_BREAK = "<!CacheBreak!>";
+
+    /**
+     * Starts a progress line of a response stream. Progress lines tell the client how far
+     * a long request has come and are not part of the response that is saved.
+     */
+    public static final String STREAM_PROGRESS = "<!Progress!>";
+
+    /**
+     * Checks whether a streamed item is a progress line.
+     *
+     * @param item the streamed item
+     * @return true if the item starts with {@link #STREAM_PROGRESS}
+     */
+    public static boolean isProgress(String item) {
+        return item != null && item.startsWith(STREAM_PROGRESS);
+    }
 }
@@ -3,6 +3,9 @@ package org.symphonykernel.config;
 import java.sql.Connection;
 import java.sql.DriverManager;
 
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.apache.velocity.runtime.resource.loader.StringResourceLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -11,6 +14,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
+import org.symphonykernel.transformer.JsonNodeUberspector;
 
 import com.azure.ai.openai.OpenAIAsyncClient;
 import com.azure.ai.openai.OpenAIClientBuilder;
@@ -35,6 +39,11 @@ public class SymphonyKernelAutoConfiguration {
     private static final Logger LOGGER = LoggerFactory.getLogger(
             SymphonyKernelAutoConfiguration.class);
 
+    /**
+     * Name of the string resource repository velocity templates are loaded from.
+     */
+    public static final String VELOCITY_REPOSITORY = "symphonyTemplates";
+
 
     /**
      * Creates a {@link OpenAIAsyncClient} with the endpoint and key specified
@@ -140,6 +149,28 @@ public class SymphonyKernelAutoConfiguration {
         .buildClient();
     }
 
+    /**
+     * Creates the {@link VelocityEngine} used to render velocity knowledge. Templates are
+     * supplied through the {@link StringResourceLoader} repository named
+     * {@link #VELOCITY_REPOSITORY} and parsed templates are cached by the caller, so the
+     * engine's own resource cache is disabled. {@link JsonNodeUberspector} gives templates
+     * direct access to JSON values.
+     *
+     * @return the initialized {@link VelocityEngine}
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "symphonyVelocityEngine")
+    public VelocityEngine symphonyVelocityEngine() {
+        VelocityEngine engine = new VelocityEngine();
+        engine.setProperty(RuntimeConstants.RESOURCE_LOADERS, "string");
+        engine.setProperty("resource.loader.string.class", StringResourceLoader.class.getName());
+        engine.setProperty("resource.loader.string." + StringResourceLoader.REPOSITORY_NAME, VELOCITY_REPOSITORY);
+        engine.setProperty("resource.loader.string.cache", false);
+        engine.setProperty(RuntimeConstants.UBERSPECT_CLASSNAME, JsonNodeUberspector.class.getName());
+        engine.init();
+        return engine;
+    }
+
     /**
      * Creates a {@link ThreadPoolTaskScheduler} for scheduling tasks.
      *
@@ -1,5 +1,7 @@
 package org.symphonykernel.core;
 
+import java.util.function.Consumer;
+
 import org.symphonykernel.LLMRequest;
 
 import reactor.core.publisher.Flux;
@@ -10,6 +12,16 @@ public interface IAIClient {
     
     String execute(LLMRequest request);
     Flux<String> streamExecute(LLMRequest request);
+
+    /**
+     * Map-reduces chunks produced incrementally by {@code chunkProducer}, sending each
+     * chunk with the request's system message as soon as it is available.
+     *
+     * @param request       the request holding the system message, tools and model
+     * @param chunkProducer pushes the chunks to the consumer it is given
+     * @return the combined response
+     */
+    String executeChunks(LLMRequest request, Consumer<Consumer<String>> chunkProducer);
     
     String processImage(String systemMessage, String base64Image);
 }
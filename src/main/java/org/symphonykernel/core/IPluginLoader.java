@@ -20,6 +20,18 @@ public interface IPluginLoader {
      * @return an instance of the specified class type.
      */
     <T> T createObject(String fullyQualifiedName, Class<T> type);
+
+    /**
+     * Creates an instance of a class for a request, with support for Spring's dependency
+     * injection. Request-scoped plugins are shared within the request.
+     *
+     * @param fullyQualifiedName the fully qualified name of the class to instantiate.
+     * @param type the expected type of the class.
+     * @param requestId the id of the request, released with {@link #releaseRequest(String)}.
+     * @param <T> the type parameter.
+     * @return an instance of the specified class type.
+     */
+    <T> T createObject(String fullyQualifiedName, Class<T> type, String requestId);
     /**
      * Creates an instance of a class given its fully qualified name, with support for Spring's
      * dependency injection.
@@ -33,4 +45,35 @@ public interface IPluginLoader {
      * @throws NoSuchMethodException if an appropriate constructor is not found.
      */
     Object createObject(String fullyQualifiedName) throws ClassNotFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException;
+
+    /**
+     * Creates an instance of a class for a request, with support for Spring's dependency
+     * injection. Request-scoped plugins are shared within the request.
+     *
+     * @param fullyQualifiedName the fully qualified name of the class to instantiate.
+     * @param requestId the id of the request, released with {@link #releaseRequest(String)}.
+     * @return an instance of the specified class type.
+     * @throws ClassNotFoundException if the class cannot be found.
+     * @throws InstantiationException if the class cannot be instantiated.
+     * @throws IllegalAccessException if the class or its nullary constructor is not accessible.
+     * @throws InvocationTargetException if the underlying constructor throws an exception.
+     * @throws NoSuchMethodException if an appropriate constructor is not found.
+     */
+    Object createObject(String fullyQualifiedName, String requestId) throws ClassNotFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException;
+
+    /**
+     * Resolves the class of a plugin without instantiating it. Lookups are cached.
+     *
+     * @param fullyQualifiedName the fully qualified name of the class.
+     * @return the plugin class.
+     * @throws ClassNotFoundException if the class cannot be found.
+     */
+    Class<?> getPluginClass(String fullyQualifiedName) throws ClassNotFoundException;
+
+    /**
+     * Releases the request-scoped plugin instances of a request once it has finished.
+     *
+     * @param requestId the request id the instances were created under.
+     */
+    void releaseRequest(String requestId);
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package org.symphonykernel.core;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how instances of a plugin or tool class created by {@link IPluginLoader} are reused.
+ * <p>
+ * The scope can also be set without touching the class through the
+ * {@code symphony.plugin.scope.<fully qualified class name>} property, which takes precedence
+ * over the annotation. Classes without either use {@code symphony.plugin.scope.default}.
+ * </p>
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PluginScope {
+
+    /**
+     * Reuse policies for plugin instances.
+     */
+    enum Scope {
+        /** One instance shared by all requests; the class must be thread-safe. */
+        SINGLETON,
+        /** One instance per request, identified by the logger trace id. */
+        REQUEST,
+        /** A new autowired instance on every use. */
+        PROTOTYPE
+    }
+
+    /**
+     * The reuse policy of the annotated class.
+     *
+     * @return the scope
+     */
+    Scope value() default Scope.PROTOTYPE;
+}
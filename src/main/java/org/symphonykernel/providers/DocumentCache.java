@@ -0,0 +1,278 @@
+package org.symphonykernel.providers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Content-addressed cache for document extraction results.
+ * <p>
+ * Entries are keyed by the SHA-256 hash of the document content (plus whatever
+ * distinguishes the derived value, e.g. render settings or the system prompt), so the
+ * same document is only rendered and sent to the vision model once regardless of the
+ * URL it came from. Values live in a size-bounded in-memory LRU tier and, when
+ * {@code symphony.file.cache.dir} is set, in a disk tier evicted by least recent use.
+ * The cache also remembers the ETag / Last-Modified validators of each URL so a
+ * conditional request can skip the download entirely. The cache is off unless
+ * {@code symphony.file.cache.enabled} is set.
+ * </p>
+ */
+@Component
+public class DocumentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentCache.class);
+    private static final String SUFFIX = ".cache";
+    private static final int MAX_VALIDATORS = 10000;
+
+    /**
+     * Validators returned by the server for a URL and the hash of the content they describe.
+     */
+    public static class Validator {
+        private final String etag;
+        private final String lastModified;
+        private final String contentHash;
+
+        Validator(String etag, String lastModified, String contentHash) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public String getContentHash() {
+            return contentHash;
+        }
+    }
+
+    @Value("${symphony.file.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${symphony.file.cache.memory.max.mb:64}")
+    private long memoryMaxMb;
+
+    @Value("${symphony.file.cache.dir:}")
+    private String cacheDir;
+
+    @Value("${symphony.file.cache.disk.max.mb:1024}")
+    private long diskMaxMb;
+
+    private final Map<String, String> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryWeight;
+    private final Map<String, Validator> validators = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Validator> eldest) {
+            return size() > MAX_VALIDATORS;
+        }
+    };
+    private Path diskDir;
+    private final AtomicLong diskWeight = new AtomicLong();
+
+    /**
+     * Prepares the disk tier, if configured.
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled || cacheDir == null || cacheDir.isBlank()) {
+            return;
+        }
+        try {
+            diskDir = Files.createDirectories(Paths.get(cacheDir));
+            try (Stream<Path> files = Files.list(diskDir)) {
+                diskWeight.set(files.filter(p -> p.toString().endsWith(SUFFIX)).mapToLong(p -> p.toFile().length()).sum());
+            }
+            logger.info("Document cache on disk at {} ({} bytes)", diskDir, diskWeight.get());
+        } catch (IOException e) {
+            logger.error("Unable to use document cache directory {}: {}", cacheDir, e.getMessage());
+            diskDir = null;
+        }
+    }
+
+    /**
+     * Gets a cached value from memory, falling back to disk.
+     *
+     * @param key the cache key
+     * @return the cached value, or null if absent
+     */
+    public String get(String key) {
+        if (!enabled || key == null) {
+            return null;
+        }
+        synchronized (memory) {
+            String value = memory.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        if (diskDir == null) {
+            return null;
+        }
+        Path file = diskDir.resolve(sha256(key) + SUFFIX);
+        try {
+            if (Files.exists(file)) {
+                String value = Files.readString(file, StandardCharsets.UTF_8);
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                putInMemory(key, value);
+                return value;
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to read document cache entry {}: {}", file, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Stores a value in memory and, when configured, on disk.
+     *
+     * @param key   the cache key
+     * @param value the value to cache
+     */
+    public void put(String key, String value) {
+        if (!enabled || key == null || value == null) {
+            return;
+        }
+        putInMemory(key, value);
+        if (diskDir == null) {
+            return;
+        }
+        Path file = diskDir.resolve(sha256(key) + SUFFIX);
+        try {
+            long previous = Files.exists(file) ? Files.size(file) : 0;
+            Files.writeString(file, value, StandardCharsets.UTF_8);
+            diskWeight.addAndGet(Files.size(file) - previous);
+            evictDisk();
+        } catch (IOException e) {
+            logger.warn("Unable to write document cache entry {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the validators last seen for a URL.
+     *
+     * @param url the document URL
+     * @return the validators, or null if unknown
+     */
+    public Validator getValidator(String url) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (validators) {
+            return validators.get(url);
+        }
+    }
+
+    /**
+     * Remembers the validators of a URL. Nothing is stored when the server sent neither.
+     *
+     * @param url          the document URL
+     * @param etag         the ETag header, may be null
+     * @param lastModified the Last-Modified header, may be null
+     * @param contentHash  the hash of the downloaded content
+     */
+    public void putValidator(String url, String etag, String lastModified, String contentHash) {
+        if (!enabled || (etag == null && lastModified == null)) {
+            return;
+        }
+        synchronized (validators) {
+            validators.put(url, new Validator(etag, lastModified, contentHash));
+        }
+    }
+
+    /**
+     * Computes the hex encoded SHA-256 hash of a string.
+     *
+     * @param text the text to hash
+     * @return the hash
+     */
+    public static String sha256(String text) {
+        return sha256(text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Computes the hex encoded SHA-256 hash of a byte array.
+     *
+     * @param bytes the bytes to hash
+     * @return the hash
+     */
+    public static String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void putInMemory(String key, String value) {
+        long max = memoryMaxMb * 1024 * 1024;
+        long weight = (long) value.length() * 2;
+        if (weight > max) {
+            return;
+        }
+        synchronized (memory) {
+            String previous = memory.put(key, value);
+            memoryWeight += weight - (previous != null ? (long) previous.length() * 2 : 0);
+            var it = memory.entrySet().iterator();
+            while (memoryWeight > max && it.hasNext()) {
+                Map.Entry<String, String> eldest = it.next();
+                memoryWeight -= (long) eldest.getValue().length() * 2;
+                it.remove();
+            }
+        }
+    }
+
+    private void evictDisk() throws IOException {
+        long max = diskMaxMb * 1024 * 1024;
+        if (diskWeight.get() <= max) {
+            return;
+        }
+        synchronized (diskWeight) {
+            List<Path> files;
+            try (Stream<Path> stream = Files.list(diskDir)) {
+                files = stream.filter(p -> p.toString().endsWith(SUFFIX))
+                        .sorted(Comparator.comparingLong(p -> p.toFile().lastModified()))
+                        .collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                if (diskWeight.get() <= max * 9 / 10) {
+                    break;
+                }
+                long size = Files.size(file);
+                if (Files.deleteIfExists(file)) {
+                    diskWeight.addAndGet(-size);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.symphonykernel.providers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the content of a downloaded document without copying it around.
+ * <p>
+ * Small documents are kept in memory; documents above the memory threshold are
+ * streamed to a temporary file which is memory-mapped on demand. Parsers should use
+ * {@link #getPath()} when the content is spilled so they can read it with random
+ * access instead of loading a {@code byte[]} copy. The SHA-256 hash of the content is
+ * computed while streaming so it can address cached extraction results. Closing the
+ * source deletes the temporary file.
+ * </p>
+ */
+public class DocumentSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentSource.class);
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final String contentType;
+    private final byte[] bytes;
+    private final Path path;
+    private final long size;
+    private String contentHash;
+    private MappedByteBuffer mapped;
+
+    private DocumentSource(String contentType, byte[] bytes, Path path, long size, String contentHash) {
+        this.contentType = contentType;
+        this.bytes = bytes;
+        this.path = path;
+        this.size = size;
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * Wraps an in-memory document.
+     *
+     * @param bytes       the document content, not copied
+     * @param contentType the content type, may be null
+     * @return the document source
+     */
+    public static DocumentSource of(byte[] bytes, String contentType) {
+        return new DocumentSource(contentType, bytes, null, bytes.length, null);
+    }
+
+    /**
+     * Reads a document from a stream, spilling it to a temporary file when it is larger
+     * than {@code memoryThreshold} bytes.
+     *
+     * @param in              the stream to read, not closed
+     * @param contentType     the content type, may be null
+     * @param memoryThreshold the maximum number of bytes kept in memory
+     * @param maxSize         the maximum accepted document size in bytes
+     * @return the document source
+     * @throws IOException if reading fails or the document exceeds {@code maxSize}
+     */
+    public static DocumentSource read(InputStream in, String contentType, long memoryThreshold, long maxSize) throws IOException {
+        int inMemory = (int) Math.min(Math.min(memoryThreshold, maxSize), Integer.MAX_VALUE - 8);
+        byte[] head = in.readNBytes(inMemory + 1);
+        MessageDigest digest = DocumentCache.newDigest();
+        digest.update(head);
+        if (head.length <= inMemory) {
+            return new DocumentSource(contentType, head, null, head.length, HexFormat.of().formatHex(digest.digest()));
+        }
+        if (head.length > maxSize) {
+            throw new IOException("Document exceeds the maximum size of " + maxSize + " bytes");
+        }
+        Path file = Files.createTempFile("symphony-doc-", ".tmp");
+        long total = head.length;
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.WRITE)) {
+            out.write(head);
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                total += read;
+                if (total > maxSize) {
+                    throw new IOException("Document exceeds the maximum size of " + maxSize + " bytes");
+                }
+                out.write(buffer, 0, read);
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        logger.debug("Spilled {} bytes to {}", total, file);
+        return new DocumentSource(contentType, null, file, total, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Gets the content type reported by the server.
+     *
+     * @return the content type, may be null
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Gets the document size in bytes.
+     *
+     * @return the size
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Gets the SHA-256 hash of the content, computed while it was downloaded.
+     *
+     * @return the hex encoded content hash
+     */
+    public synchronized String getContentHash() {
+        if (contentHash == null && bytes != null) {
+            contentHash = DocumentCache.sha256(bytes);
+        }
+        return contentHash;
+    }
+
+    /**
+     * Checks whether the content was spilled to a temporary file.
+     *
+     * @return true if {@link #getPath()} is available
+     */
+    public boolean isSpilled() {
+        return path != null;
+    }
+
+    /**
+     * Gets the temporary file holding the content.
+     *
+     * @return the file path, or null if the content is in memory
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the in-memory content without copying it.
+     *
+     * @return the content, or null if the content is spilled
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets a read-only view of the content, memory-mapping the temporary file if needed.
+     *
+     * @return the content buffer
+     * @throws IOException if the file cannot be mapped
+     */
+    public synchronized ByteBuffer buffer() throws IOException {
+        if (bytes != null) {
+            return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+        if (mapped == null) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+        return mapped.asReadOnlyBuffer();
+    }
+
+    /**
+     * Opens a stream over the content.
+     *
+     * @return an input stream positioned at the start of the content
+     * @throws IOException if the content cannot be read
+     */
+    public InputStream openStream() throws IOException {
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        }
+        return Files.newInputStream(path);
+    }
+
+    /**
+     * Checks whether the content starts with the given bytes.
+     *
+     * @param magic the expected leading bytes
+     * @return true if the content starts with {@code magic}
+     */
+    public boolean startsWith(byte... magic) {
+        if (size <= magic.length) {
+            return false;
+        }
+        try {
+            ByteBuffer buffer = buffer();
+            for (int i = 0; i < magic.length; i++) {
+                if (buffer.get(i) != magic[i]) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Unable to read document header: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the temporary file, if any.
+     */
+    @Override
+    public void close() {
+        if (path != null) {
+            mapped = null;
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Unable to delete temporary file {}: {}", path, e.getMessage());
+                path.toFile().deleteOnExit();
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.symphonykernel.providers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.symphonykernel.Knowledge;
+import org.symphonykernel.PluginDefinition;
+import org.symphonykernel.QueryType;
+import org.symphonykernel.core.IPluginLoader;
+import org.symphonykernel.core.IStep;
+import org.symphonykernel.core.IknowledgeBase;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compiles the data of plugin and tool knowledge into shared {@link PluginDefinition}s.
+ * <p>
+ * Each knowledge is parsed once per version of its data and the tool class is resolved
+ * when the definition is compiled. On startup every PLUGIN and TOOL knowledge is compiled
+ * so a missing or mistyped tool class is reported before the first request uses it;
+ * set {@code symphony.plugin.validate.fail.fast} to abort startup instead of logging.
+ * </p>
+ */
+@Component
+public class PluginDefinitionProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(PluginDefinitionProvider.class);
+
+    @Autowired
+    IknowledgeBase knowledgeBase;
+
+    @Autowired
+    IPluginLoader pluginLoader;
+
+    @Value("${symphony.plugin.validate.on.startup:true}")
+    private boolean validateOnStartup;
+
+    @Value("${symphony.plugin.validate.fail.fast:false}")
+    private boolean failFast;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, PluginDefinition> definitions = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the definition of a plugin or tool knowledge, compiling it if the knowledge
+     * is new or its data changed.
+     *
+     * @param kb the knowledge
+     * @return the definition
+     * @throws IllegalArgumentException if the data is not valid JSON or the tool class is invalid
+     */
+    public PluginDefinition get(Knowledge kb) {
+        PluginDefinition definition = definitions.get(kb.getName());
+        if (definition == null || !definition.isCompiledFrom(kb.getData())) {
+            definition = compile(kb);
+            definitions.put(kb.getName(), definition);
+        }
+        return definition;
+    }
+
+    /**
+     * Compiles all plugin and tool knowledge once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void validate() {
+        if (!validateOnStartup) {
+            return;
+        }
+        int count = 0;
+        int failures = 0;
+        for (String name : knowledgeBase.getAllKnowledgeDescriptions().keySet()) {
+            Knowledge kb = knowledgeBase.GetByName(name);
+            if (kb == null || (kb.getType() != QueryType.PLUGIN && kb.getType() != QueryType.TOOL)) {
+                continue;
+            }
+            count++;
+            try {
+                get(kb);
+            } catch (IllegalArgumentException e) {
+                failures++;
+                logger.error("Invalid {} knowledge {}: {}", kb.getType(), name, e.getMessage());
+            }
+        }
+        logger.info("Validated {} plugin definition(s), {} invalid", count, failures);
+        if (failFast && failures > 0) {
+            throw new IllegalStateException(failures + " invalid plugin definition(s), see log for details");
+        }
+    }
+
+    private PluginDefinition compile(Knowledge kb) {
+        PluginDefinition definition;
+        try {
+            definition = PluginDefinition.from(kb.getName(), kb.getData(), objectMapper.readTree(kb.getData()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid plugin definition JSON", e);
+        }
+        if (definition.hasTool()) {
+            Class<?> toolClass;
+            try {
+                toolClass = pluginLoader.getPluginClass(definition.getTool());
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Plugin not found: " + definition.getTool(), e);
+            }
+            if (kb.getType() == QueryType.TOOL && !IStep.class.isAssignableFrom(toolClass)) {
+                throw new IllegalArgumentException("Plugin of type IStep not found: " + definition.getTool());
+            }
+        }
+        logger.info("Compiled plugin definition {}", kb.getName());
+        return definition;
+    }
+}
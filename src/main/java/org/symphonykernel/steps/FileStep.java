@@ -4,32 +4,54 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 import javax.imageio.ImageIO;
 
-import org.apache.commons.io.IOUtils;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
 import org.symphonykernel.ChatResponse;
 import org.symphonykernel.ExecutionContext;
 import org.symphonykernel.Knowledge;
+import org.symphonykernel.LLMRequest;
+import org.symphonykernel.Priority;
+import org.symphonykernel.config.Constants;
 import org.symphonykernel.core.IAIClient;
 import org.symphonykernel.core.IknowledgeBase;
+import org.symphonykernel.providers.DocumentCache;
+import org.symphonykernel.providers.DocumentSource;
+import org.symphonykernel.transformer.ExcelStreamTransformer;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -37,22 +59,146 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 
 /**
  * FileStep is responsible for processing files and extracting text from various formats,
  * such as DOCX, Excel, and PDF. It integrates with the Symphony Kernel for file-based operations.
+ * <p>
+ * Files are downloaded with connect and read timeouts and a maximum size; content above the
+ * memory threshold is spilled to a temporary file that the parsers read directly.
+ * Text is taken from the PDF text layer, DOCX and Excel extractors whenever they yield
+ * meaningful content; only pages without a text layer are rendered and transcribed by the
+ * vision model. The whole document is then split into page or paragraph sections, bounded
+ * by a chunk budget, and map-reduced by the AI client rather than truncated; when the
+ * budget cuts the document short, the result is followed by a {@code truncated} notice.
+ * Workbooks are streamed with the SAX event model, within row and column caps, straight
+ * into the chunked map-reduce of the AI client.
+ * Scanned PDF pages are rendered in parallel, straight to grayscale, at a configurable DPI,
+ * and encoded once in memory. When {@code symphony.file.cache.enabled} is set,
+ * extracted text, vision results and successful model answers are cached by content hash
+ * in {@link DocumentCache}, and conditional requests avoid re-downloading unchanged
+ * documents.
+ * </p>
  */
 @Service("FileStep")
 public class FileStep extends  BaseStep {
 
     private static final Logger logger = LoggerFactory.getLogger(FileStep.class);
 
+    /** Chunk budget that processes the whole document. */
+    static final int UNLIMITED = 0;
+
+    private static final String TYPE_TEXT = "text";
+    private static final Pattern WORKBOOK_PART = Pattern.compile("/xl/workbook\\.xml");
+    private static final String TRANSCRIBE_PROMPT = "Transcribe all the text on this page, including tables, in reading order. Return only the transcribed text.";
+
+    /**
+     * Content routed to the model; the type is null when the document is not supported.
+     */
+    private static class Extraction {
+        private final String type;
+        private final String data;
+        private final boolean complete;
+
+        Extraction(String type, String data) {
+            this(type, data, true);
+        }
+
+        Extraction(String type, String data, boolean complete) {
+            this.type = type;
+            this.data = data;
+            this.complete = complete;
+        }
+    }
+
     @Autowired
     IknowledgeBase knowledgeBase;
 
     @Autowired
     IAIClient azureOpenAIHelper;
 
+    @Autowired
+    DocumentCache documentCache;
+
+    @Value("${symphony.file.connect.timeout.ms:10000}")
+    private int connectTimeoutMs;
+
+    @Value("${symphony.file.read.timeout.ms:60000}")
+    private int readTimeoutMs;
+
+    @Value("${symphony.file.max.size.mb:250}")
+    private long maxSizeMb;
+
+    @Value("${symphony.file.memory.threshold.kb:8192}")
+    private long memoryThresholdKb;
+
+    @Value("${symphony.file.render.dpi:216}")
+    private float renderDpi;
+
+    @Value("${symphony.file.render.threads:4}")
+    private int renderThreads;
+
+    @Value("${symphony.file.text.min.chars:32}")
+    private int minTextChars;
+
+    @Value("${symphony.file.vision.max.pages:48}")
+    private int visionMaxPages;
+
+    @Value("${symphony.file.vision.threads:8}")
+    private int visionThreads;
+
+    @Value("${symphony.file.chunk.chars:60000}")
+    private int chunkChars;
+
+    @Value("${symphony.file.chunk.budget:24}")
+    private int chunkBudget;
+
+    @Value("${symphony.file.excel.max.rows:200000}")
+    private int excelMaxRows;
+
+    @Value("${symphony.file.excel.max.columns:100}")
+    private int excelMaxColumns;
+
+    @Value("${symphony.file.excel.chunk.chars:60000}")
+    private int excelChunkChars;
+
+    private ExecutorService renderExecutor;
+
+    private ExecutorService visionExecutor;
+
+    /**
+     * Validates the chunking settings and initializes the thread pools used to render PDF
+     * pages and to transcribe them.
+     *
+     * @throws IllegalStateException if {@code symphony.file.chunk.chars} is not positive
+     */
+    @PostConstruct
+    public void init() {
+        if (chunkChars <= 0) {
+            throw new IllegalStateException("symphony.file.chunk.chars must be positive: " + chunkChars);
+        }
+        if (chunkBudget <= UNLIMITED) {
+            logger.info("No chunk budget set, documents are processed in full");
+        }
+        renderExecutor = Executors.newFixedThreadPool(Math.max(1, renderThreads));
+        visionExecutor = Executors.newFixedThreadPool(Math.max(1, visionThreads));
+    }
+
+    /**
+     * Shuts down the page rendering and transcription thread pools.
+     */
+    @PreDestroy
+    public void cleanup() {
+        if (renderExecutor != null) {
+            renderExecutor.shutdownNow();
+        }
+        if (visionExecutor != null) {
+            visionExecutor.shutdownNow();
+        }
+    }
 
 	@Override
     public ChatResponse getResponse(ExecutionContext ctx) {
@@ -69,51 +215,42 @@ public class FileStep extends  BaseStep {
         String url = ctx.getVariables().findValue("url").asText();
         String data = null;
         String type=null;
+        String resultKey = null;
+        String cachedResult = null;
+        String streamedResult = null;
         long startTime = System.currentTimeMillis(); // Start time logging
         try {
-            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-            if (headers != null) {
-                headers.entrySet().forEach(entry -> {
-                    connection.setRequestProperty(entry.getKey(), String.join(",", entry.getValue()));
-                });
-            }
-
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Accept", "*/*");
-            connection.connect();
-
-            //int statusCode = connection.getResponseCode();
-            //String responseMessage = connection.getResponseMessage();
-
-            String contentType = connection.getContentType();
-            byte[] fileBytes = IOUtils.toByteArray(connection.getInputStream());
-            //data = Base64.getEncoder().encodeToString(fileBytes);
-            
-            if (contentType != null && contentType.contains("wordprocessingml.document")) {
-                type="word";
-                //data = extractTextFromDocx(new ByteArrayInputStream(fileBytes));
-            } else if (contentType != null && contentType.contains("pdf")) {
-                type="pdf";
-                data = extractTextFromPdf(new ByteArrayInputStream(fileBytes));
-            }
-            else if (contentType != null && contentType.contains("excel")) {
-                type="excel";
-                //data = extractTextFromExcel(new ByteArrayInputStream(fileBytes));
-            } else if (isExcel(fileBytes)) {
-                type="excel";
-               // data = extractTextFromExcel(new ByteArrayInputStream(fileBytes));
+            DocumentSource fetched = download(url, headers, true);
+            if (fetched == null) {
+                // 304 Not Modified: the content is the one we hashed last time
+                DocumentCache.Validator validator = documentCache.getValidator(url);
+                if (validator != null) {
+                    resultKey = resultKey(validator.getContentHash(), ctx.getKnowledge(), ctx.getModelName());
+                    cachedResult = documentCache.get(resultKey);
+                }
+                if (cachedResult == null) {
+                    fetched = download(url, headers, false);
+                }
             }
-            else if (isPdf(fileBytes)) {
-                type="pdf";
-                //data = extractTextFromPdf(new ByteArrayInputStream(fileBytes));
-            } else if (isDocx(fileBytes)) {
-                type="word";
-                //data = extractTextFromDocx(new ByteArrayInputStream(fileBytes));
+            if (fetched != null) {
+                try (DocumentSource source = fetched) {
+                    resultKey = resultKey(source.getContentHash(), ctx.getKnowledge(), ctx.getModelName());
+                    cachedResult = documentCache.get(resultKey);
+                    if (cachedResult == null && hasSystemPrompt(ctx.getKnowledge()) && isWorkbook(source)) {
+                        streamedResult = processWorkbook(ctx, source, resultKey);
+                    } else if (cachedResult == null) {
+                        Extraction extraction = extract(source);
+                        type = extraction.type;
+                        data = extraction.data;
+                    }
+                }
             }
         } catch (Exception e) {
             String str = "Failed to fetch " + url + " Error :" + e.getMessage();
             logger.error(str, e);
+            type = null;
             data = str;
+            resultKey = null;
         } finally {
             long endTime = System.currentTimeMillis(); // End time logging
             logger.info("Time taken to fetch file from URL (" + url + "): " + (endTime - startTime) + " ms");
@@ -121,20 +258,325 @@ public class FileStep extends  BaseStep {
 
         ObjectMapper mapper = new ObjectMapper();
         ArrayNode node = mapper.createArrayNode();
-        type="image";
-        JsonNode jsonObject = process(ctx.getKnowledge(),type,data, mapper);
+        if (cachedResult != null) {
+            logger.info("Using cached extraction result for {}", url);
+            node.add(toJson(cachedResult, mapper));
+            String notice = documentCache.get(noticeKey(resultKey));
+            if (notice != null) {
+                node.add(toJson(notice, mapper));
+            }
+            return node;
+        }
+        if (streamedResult != null) {
+            node.add(toJson(streamedResult, mapper));
+            return node;
+        }
+        ArrayNode notices = mapper.createArrayNode();
+        JsonNode jsonObject = process(ctx.getKnowledge(), ctx.getModelName(), type, data, mapper, resultKey, notices);
         node.add(jsonObject);
+        node.addAll(notices);
 		return node;
 	}
 
-	private JsonNode process(Knowledge kb,String type, String data, ObjectMapper mapper) {
+	private String resultKey(String contentHash, Knowledge kb, String modelName) {
+		String systemPrompt = kb != null ? kb.getData() : null;
+		return "result:" + contentHash + ":" + (modelName != null ? modelName : "default") + ":" + DocumentCache.sha256(systemPrompt);
+	}
+
+	/**
+	 * Caches a model answer only when it is a usable result, i.e. non-blank and valid
+	 * JSON, so failed or garbled answers are asked again on the next request.
+	 */
+	private void cacheResult(String resultKey, String result, ObjectMapper mapper) {
+		if (resultKey == null || result == null || result.isBlank()) {
+			return;
+		}
+		try {
+			mapper.readTree(result);
+			documentCache.put(resultKey, result);
+		} catch (JsonProcessingException e) {
+			logger.debug("Not caching unparseable result {}", resultKey);
+		}
+	}
+
+	private JsonNode toJson(String result, ObjectMapper mapper) {
+		try {
+			return mapper.readTree(result);
+		} catch (JsonProcessingException e) {
+			ObjectNode jsonObject = mapper.createObjectNode();
+			jsonObject.put("data", result);
+			return jsonObject;
+		}
+	}
+
+	/**
+	 * Streams the workbook rows in the compressed row format straight into the chunked
+	 * map-reduce, so the sheet is never held in memory as a whole and the first chunks are
+	 * sent to the model while the rest of the workbook is still being parsed.
+	 */
+	private String processWorkbook(ExecutionContext ctx, DocumentSource source, String resultKey) throws IOException {
+		ExcelStreamTransformer transformer = new ExcelStreamTransformer(excelMaxRows, excelMaxColumns, excelChunkChars);
+		OPCPackage pkg = openPackage(source);
+		try {
+			String result = azureOpenAIHelper.executeChunks(new LLMRequest(ctx.getKnowledge().getData(), "", null, ctx.getModelName()), sink -> {
+				try {
+					int rows = transformer.transform(pkg, sink);
+					logger.info("Streamed {} workbook rows{}", rows, transformer.isTruncated() ? " (truncated)" : "");
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			cacheResult(resultKey, result, new ObjectMapper());
+			return result;
+		} finally {
+			pkg.revert();
+		}
+	}
+
+	private boolean hasSystemPrompt(Knowledge kb) {
+		return kb != null && kb.getData() != null && !kb.getData().isEmpty();
+	}
+
+	private boolean isWorkbook(DocumentSource source) throws IOException {
+		String contentType = source.getContentType();
+		if (contentType != null && (contentType.contains("excel") || contentType.contains("spreadsheetml"))) {
+			return true;
+		}
+		if (!isExcel(source)) {
+			return false;
+		}
+		OPCPackage pkg = openPackage(source);
+		try {
+			return !pkg.getPartsByName(WORKBOOK_PART).isEmpty();
+		} catch (InvalidFormatException e) {
+			return false;
+		} finally {
+			pkg.revert();
+		}
+	}
+
+	private OPCPackage openPackage(DocumentSource source) throws IOException {
+		try {
+			return source.isSpilled()
+					? OPCPackage.open(source.getPath().toFile(), PackageAccess.READ)
+					: OPCPackage.open(source.openStream());
+		} catch (InvalidFormatException e) {
+			throw new IOException("Unable to open package: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Routes the document to the cheapest extractor that yields meaningful text: the
+	 * DOCX and Excel extractors, or the PDF text layer page by page. Only pages without
+	 * a text layer are rendered for the vision model. The outcome is cached by content hash,
+	 * so vision transcriptions are reused whatever prompt the document is later asked with.
+	 *
+	 * @param source the downloaded document
+	 * @return the extracted text
+	 * @throws IOException if the document cannot be read
+	 */
+	private Extraction extract(DocumentSource source) throws IOException {
+		String key = "extract:" + source.getContentHash() + ":" + minTextChars + ":" + renderDpi + ":" + visionMaxPages;
+		String cached = documentCache.get(key);
+		if (cached != null) {
+			int separator = cached.indexOf('\n');
+			return new Extraction(cached.substring(0, separator), cached.substring(separator + 1));
+		}
+		Extraction extraction;
+		String contentType = source.getContentType();
+		if (contentType != null && contentType.contains("wordprocessingml.document")) {
+			extraction = new Extraction(TYPE_TEXT, extractTextFromDocx(source));
+		} else if ((contentType != null && contentType.contains("pdf")) || isPdf(source)) {
+			extraction = extractFromPdf(source);
+		} else if (contentType != null && (contentType.contains("excel") || contentType.contains("spreadsheetml"))) {
+			extraction = new Extraction(TYPE_TEXT, extractTextFromExcel(source));
+		} else if (isExcel(source) || isDocx(source)) {
+			// Both are zip packages; look for the workbook part to tell them apart
+			extraction = new Extraction(TYPE_TEXT, isWorkbook(source) ? extractTextFromExcel(source) : extractTextFromDocx(source));
+		} else {
+			logger.warn("Unsupported document type {}", contentType);
+			return new Extraction(null, null);
+		}
+		if (extraction.data != null && extraction.complete) {
+			documentCache.put(key, extraction.type + "\n" + extraction.data);
+		}
+		return extraction;
+	}
+
+	/**
+	 * Extracts the text layer of each page with {@link PDFTextStripper}. Pages without
+	 * meaningful text are rendered and transcribed individually by the vision model, up to
+	 * {@code symphony.file.vision.max.pages}, and merged with the text layer of the others so
+	 * every page ends up in the chunk pipeline. The scanned pages are split over the render
+	 * pool, each worker loading the document once, and every rendered page is transcribed on
+	 * the {@code symphony.file.vision.threads} pool so model latency never holds a render thread.
+	 */
+	private Extraction extractFromPdf(DocumentSource source) throws IOException {
+		String[] texts;
+		List<Integer> scanned = new ArrayList<>();
+		int failed = 0;
+		try (PDDocument document = loadPdf(source)) {
+			int pages = document.getNumberOfPages();
+			texts = new String[pages];
+			PDFTextStripper stripper = new PDFTextStripper();
+			for (int page = 0; page < pages; page++) {
+				stripper.setStartPage(page + 1);
+				stripper.setEndPage(page + 1);
+				String text = stripper.getText(document);
+				if (isMeaningful(text)) {
+					texts[page] = text;
+				} else {
+					scanned.add(page);
+				}
+			}
+		}
+		if (!scanned.isEmpty()) {
+			logger.info("Transcribing {} scanned page(s) out of {}", scanned.size(), texts.length);
+			List<Integer> transcribed = scanned.subList(0, Math.min(scanned.size(), visionMaxPages));
+			if (transcribed.size() < scanned.size()) {
+				logger.warn("Skipping {} scanned page(s) beyond the vision limit of {}", scanned.size() - transcribed.size(), visionMaxPages);
+			}
+			String traceId = MDC.get(Constants.LOGGER_TRACE_ID);
+			Map<Integer, CompletableFuture<String>> transcriptions = new ConcurrentHashMap<>();
+			int workers = Math.max(1, Math.min(renderThreads, transcribed.size()));
+			int pagesPerWorker = (transcribed.size() + workers - 1) / workers;
+			List<CompletableFuture<Void>> renders = new ArrayList<>();
+			for (int start = 0; start < transcribed.size(); start += pagesPerWorker) {
+				List<Integer> group = transcribed.subList(start, Math.min(transcribed.size(), start + pagesPerWorker));
+				// Render threads only render; each page is handed to the vision pool as soon as it is ready
+				renders.add(CompletableFuture.runAsync(() -> {
+					MDC.put(Constants.LOGGER_TRACE_ID, traceId);
+					try {
+						renderPages(source, group, (page, image) -> transcriptions.put(page, CompletableFuture.supplyAsync(() -> {
+							MDC.put(Constants.LOGGER_TRACE_ID, traceId);
+							Priority.BACKGROUND.apply();
+							try {
+								return azureOpenAIHelper.processImage(TRANSCRIBE_PROMPT, image);
+							} finally {
+								MDC.clear();
+							}
+						}, visionExecutor)));
+					} finally {
+						MDC.clear();
+					}
+				}, renderExecutor));
+			}
+			for (CompletableFuture<Void> render : renders) {
+				try {
+					render.join();
+				} catch (CompletionException e) {
+					logger.error("Error rendering scanned pages: {}", e.getMessage(), e);
+				}
+			}
+			for (int page : transcribed) {
+				CompletableFuture<String> transcription = transcriptions.get(page);
+				if (transcription != null) {
+					try {
+						texts[page] = transcription.join();
+					} catch (CompletionException e) {
+						logger.error("Error transcribing page {}: {}", page + 1, e.getMessage(), e);
+					}
+				}
+				if (texts[page] == null) {
+					failed++;
+				}
+			}
+		}
+		StringBuilder text = new StringBuilder();
+		for (int page = 0; page < texts.length; page++) {
+			if (texts[page] != null) {
+				text.append("Page ").append(page + 1).append(":\n").append(texts[page].strip()).append("\n\n");
+			}
+		}
+		// Pages that could not be transcribed are retried next time rather than cached as missing
+		return new Extraction(TYPE_TEXT, text.toString(), failed == 0);
+	}
+
+	private boolean isMeaningful(String text) {
+		if (text == null) {
+			return false;
+		}
+		int count = 0;
+		for (int i = 0; i < text.length() && count < minTextChars; i++) {
+			if (Character.isLetterOrDigit(text.charAt(i))) {
+				count++;
+			}
+		}
+		return count >= minTextChars;
+	}
+
+	/**
+	 * Downloads the file with timeouts and a size cap, spilling large bodies to disk.
+	 * When {@code conditional} is set and validators are known for the URL, the request
+	 * is sent with If-None-Match / If-Modified-Since.
+	 *
+	 * @param url         the file URL
+	 * @param headers     the request headers, may be null
+	 * @param conditional whether to send a conditional request
+	 * @return the downloaded document, to be closed by the caller, or null if not modified
+	 * @throws IOException if the download fails or the file is too large
+	 */
+	private DocumentSource download(String url, HttpHeaders headers, boolean conditional) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		try {
+			if (headers != null) {
+				headers.entrySet().forEach(entry -> {
+					connection.setRequestProperty(entry.getKey(), String.join(",", entry.getValue()));
+				});
+			}
+			DocumentCache.Validator validator = conditional ? documentCache.getValidator(url) : null;
+			if (validator != null) {
+				if (validator.getEtag() != null) {
+					connection.setRequestProperty("If-None-Match", validator.getEtag());
+				}
+				if (validator.getLastModified() != null) {
+					connection.setRequestProperty("If-Modified-Since", validator.getLastModified());
+				}
+			}
+			connection.setConnectTimeout(connectTimeoutMs);
+			connection.setReadTimeout(readTimeoutMs);
+			connection.setRequestMethod("GET");
+			connection.setRequestProperty("Accept", "*/*");
+			connection.connect();
+			if (validator != null && connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				return null;
+			}
+
+			long maxSize = maxSizeMb * 1024 * 1024;
+			long length = connection.getContentLengthLong();
+			if (length > maxSize) {
+				throw new IOException("File size " + length + " exceeds the maximum of " + maxSize + " bytes");
+			}
+			DocumentSource source;
+			try (InputStream in = connection.getInputStream()) {
+				source = DocumentSource.read(in, connection.getContentType(), memoryThresholdKb * 1024, maxSize);
+			}
+			documentCache.putValidator(url, connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"), source.getContentHash());
+			return source;
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private JsonNode process(Knowledge kb, String modelName, String type, String data, ObjectMapper mapper, String resultKey, ArrayNode node) {
 		String systemPrompt=null;
 		if(kb!=null)
 			{
 			systemPrompt=kb.getData();
 			}
-		 if (systemPrompt != null && !systemPrompt.isEmpty()) {
-			 String result = azureOpenAIHelper.processImage(systemPrompt, data );
+		 if (type != null && data != null && !data.isEmpty() && systemPrompt != null && !systemPrompt.isEmpty()) {
+			 String text = data;
+			 Sections[] sections = new Sections[1];
+			 String result = azureOpenAIHelper.executeChunks(new LLMRequest(systemPrompt, "", null, modelName),
+					 sink -> sections[0] = splitSections(text, chunkChars, chunkBudget, sink));
+			 cacheResult(resultKey, result, mapper);
+			 if (sections[0] != null && sections[0].isTruncated()) {
+				 ObjectNode notice = sections[0].toNotice(mapper, chunkBudget);
+				 node.add(notice);
+				 if (resultKey != null && documentCache.get(resultKey) != null) {
+					 documentCache.put(noticeKey(resultKey), notice.toString());
+				 }
+			 }
 			 try {
 				return mapper.readTree(result);
 			} catch (JsonProcessingException e) {
@@ -147,45 +589,123 @@ public class FileStep extends  BaseStep {
 		return jsonObject;
 		 
 	}
-    private String getImagebase64Text(PDDocument document, int fromPage, int toPage) {
-        try {
+
+	private static String noticeKey(String resultKey) {
+		return resultKey + ":truncated";
+	}
+
+	/**
+	 * Splits extracted text into sections of at most {@code maxLength} characters, breaking
+	 * on blank lines (page boundaries for PDFs, paragraphs otherwise) and hard-splitting
+	 * paragraphs that are longer than a section. At most {@code budget} sections are emitted,
+	 * or all of them when the budget is {@value #UNLIMITED} or less; the returned
+	 * {@link Sections} tell whether the rest of the document was dropped.
+	 *
+	 * @param text      the text to split
+	 * @param maxLength the maximum section length, greater than 0
+	 * @param budget    the maximum number of sections, or 0 or less for no limit
+	 * @param sink      receives each section
+	 * @return the number of sections emitted and characters processed
+	 * @throws IllegalArgumentException if {@code maxLength} is not positive
+	 */
+	static Sections splitSections(String text, int maxLength, int budget, Consumer<String> sink) {
+		if (maxLength <= 0) {
+			throw new IllegalArgumentException("Section length must be positive: " + maxLength);
+		}
+		int limit = budget <= UNLIMITED ? Integer.MAX_VALUE : budget;
+		StringBuilder section = new StringBuilder();
+		int count = 0;
+		int offset = 0;
+		while (offset < text.length()) {
+			int end = text.indexOf("\n\n", offset);
+			end = end < 0 ? text.length() : end + 2;
+			String paragraph = text.substring(offset, Math.min(end, offset + maxLength));
+			if (section.length() > 0 && section.length() + paragraph.length() > maxLength) {
+				sink.accept(section.toString());
+				section.setLength(0);
+				if (++count == limit) {
+					break;
+				}
+			}
+			section.append(paragraph);
+			offset += paragraph.length();
+		}
+		if (section.length() > 0) {
+			sink.accept(section.toString());
+			count++;
+		}
+		Sections sections = new Sections(count, offset, text.length());
+		if (sections.isTruncated()) {
+			logger.warn("Document exceeds the chunk budget of {}; {} of {} characters were processed", budget, offset, text.length());
+		}
+		return sections;
+	}
+
+	/**
+	 * The outcome of {@link #splitSections(String, int, int, Consumer)}.
+	 */
+	static final class Sections {
+		final int count;
+		final int processedChars;
+		final int totalChars;
+
+		Sections(int count, int processedChars, int totalChars) {
+			this.count = count;
+			this.processedChars = processedChars;
+			this.totalChars = totalChars;
+		}
+
+		/**
+		 * Checks whether the chunk budget cut off the end of the document.
+		 *
+		 * @return true if some of the text was not emitted
+		 */
+		boolean isTruncated() {
+			return processedChars < totalChars;
+		}
+
+		/**
+		 * Describes the truncation for the caller of the step.
+		 *
+		 * @param mapper the mapper creating the node
+		 * @param budget the chunk budget that was applied
+		 * @return a node with {@code truncated}, the processed and total characters and a message
+		 */
+		ObjectNode toNotice(ObjectMapper mapper, int budget) {
+			ObjectNode notice = mapper.createObjectNode();
+			notice.put("truncated", true);
+			notice.put("processedChars", processedChars);
+			notice.put("totalChars", totalChars);
+			notice.put("message", "Only the first " + count + " sections of the document were processed; raise symphony.file.chunk.budget (currently " + budget + ") to process the rest");
+			return notice;
+		}
+	}
+    /**
+     * Renders the given pages from a single loaded document, handing each Base64 PNG to the
+     * consumer as soon as it is rendered. Pages beyond the end of the document are skipped.
+     */
+    private void renderPages(DocumentSource source, List<Integer> pages, BiConsumer<Integer, String> consumer) {
+        try (PDDocument document = loadPdf(source)) {
             PDFRenderer pdfRenderer = new PDFRenderer(document);
-            StringBuilder base64Images = new StringBuilder();
-            for (int page = fromPage; page <= toPage && page < document.getNumberOfPages(); page++) {
-                BufferedImage image = pdfRenderer.renderImage(page,3);
+            for (int page : pages) {
+                if (page >= document.getNumberOfPages()) {
+                    continue;
+                }
+                BufferedImage image = pdfRenderer.renderImageWithDPI(page, renderDpi, ImageType.GRAY);
                 ByteArrayOutputStream baos = new ByteArrayOutputStream();
                 ImageIO.write(image, "png", baos);
-                // Save the image to a file
-                String fileName = "page_" + page + ".png";
-                ImageIO.write(image, "png", new java.io.File(fileName));
-              
-                // Read the image from the file path
-                BufferedImage imageFromFile = ImageIO.read(new java.io.File(fileName));
-               
-                BufferedImage grayscaleImage = new BufferedImage(imageFromFile.getWidth(), imageFromFile.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-                grayscaleImage.getGraphics().drawImage(imageFromFile, 0, 0, null);
-
-                // Write the grayscale image to a ByteArrayOutputStream
-                ByteArrayOutputStream grayscaleBaos = new ByteArrayOutputStream();
-                ImageIO.write(grayscaleImage, "png", grayscaleBaos);
-
-                // Get the Base64 encoded string of the grayscale image
-                String grayscaleBase64Image = Base64.getEncoder().encodeToString(grayscaleBaos.toByteArray());
-                
-                base64Images.append(grayscaleBase64Image).append(",");
+                consumer.accept(page, Base64.getEncoder().encodeToString(baos.toByteArray()));
             }
-
-            // Remove trailing comma if present
-            if (base64Images.length() > 0) {
-                base64Images.setLength(base64Images.length() - 1);
-            }
-
-            return base64Images.toString();
         } catch (IOException e) {
-            logger.error("Error rendering pages as images: {}", e.getMessage(), e);
-            return null;
+            throw new UncheckedIOException(e);
         }
     }
+
+    private PDDocument loadPdf(DocumentSource source) throws IOException {
+        return source.isSpilled()
+                ? Loader.loadPDF(new RandomAccessReadMemoryMappedFile(source.getPath()))
+                : Loader.loadPDF(source.getBytes());
+    }
     
     /**
      * Extracts text content from a DOCX file provided as a ByteArrayInputStream.
@@ -194,11 +714,23 @@ public class FileStep extends  BaseStep {
      * @return the extracted text from the DOCX file
      */
     public String extractTextFromDocx(ByteArrayInputStream docxInputStream) {
+        return extractTextFromDocx(DocumentSource.of(docxInputStream.readAllBytes(), null));
+    }
+
+    /**
+     * Extracts text content from a DOCX document, reading spilled documents directly from disk.
+     *
+     * @param source the downloaded document
+     * @return the extracted text from the DOCX file
+     */
+    public String extractTextFromDocx(DocumentSource source) {
         XWPFDocument document = null;
         XWPFWordExtractor extractor = null;
         try {
-            // Load the DOCX document from the InputStream
-            document = new XWPFDocument(docxInputStream);
+            // Load the DOCX document from the temporary file or the in-memory content
+            document = source.isSpilled()
+                    ? new XWPFDocument(OPCPackage.open(source.getPath().toFile(), PackageAccess.READ))
+                    : new XWPFDocument(source.openStream());
 
             // Create an XWPFWordExtractor to extract text
             extractor = new XWPFWordExtractor(document);
@@ -208,7 +740,7 @@ public class FileStep extends  BaseStep {
 
             return text;
 
-        } catch (IOException e) {
+        } catch (IOException | InvalidFormatException e) {
             System.err.println("Error extracting text from DOCX: " + e.getMessage());
             return ""; // Return empty string on error
         } finally {
@@ -231,21 +763,16 @@ public class FileStep extends  BaseStep {
         }
     }
 
-    private boolean isPdf(byte[] bytes) {
-        return bytes.length > 4 &&
-               bytes[0] == '%' && bytes[1] == 'P' && bytes[2] == 'D' && bytes[3] == 'F';
+    private boolean isPdf(DocumentSource source) {
+        return source.startsWith((byte) '%', (byte) 'P', (byte) 'D', (byte) 'F');
     }
 
-    private boolean isExcel(byte[] bytes) {
-        return bytes.length > 4 &&
-               bytes[0] == 'P' && bytes[1] == 'K' &&
-               bytes[2] == 3 && bytes[3] == 4; // Common for .xlsx files
+    private boolean isExcel(DocumentSource source) {
+        return source.startsWith((byte) 'P', (byte) 'K', (byte) 3, (byte) 4); // Common for .xlsx files
     }
 
-    private boolean isDocx(byte[] bytes) {
-      
-        return bytes.length > 2 &&
-               bytes[0] == 'P' && bytes[1] == 'K';
+    private boolean isDocx(DocumentSource source) {
+        return source.startsWith((byte) 'P', (byte) 'K');
     }
     
     /**
@@ -255,26 +782,23 @@ public class FileStep extends  BaseStep {
      * @return the extracted text from the Excel file
      */
     public String extractTextFromExcel(ByteArrayInputStream excelInputStream) {
-        Workbook workbook = null;
+        return extractTextFromExcel(DocumentSource.of(excelInputStream.readAllBytes(), null));
+    }
+
+    /**
+     * Extracts text content from an Excel document, reading spilled documents directly from disk.
+     *
+     * @param source the downloaded document
+     * @return the extracted text from the Excel file
+     */
+    public String extractTextFromExcel(DocumentSource source) {
+        OPCPackage pkg = null;
         StringBuilder extractedText = new StringBuilder();
         try {
-            // Load the Excel workbook from the InputStream
-            workbook = new XSSFWorkbook(excelInputStream);
-
-            // Iterate through all sheets in the workbook
-            for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-                Sheet sheet = workbook.getSheetAt(i);
-                extractedText.append("Sheet: ").append(sheet.getSheetName()).append("\n");
-
-                // Iterate through all rows in the sheet
-                for (Row row : sheet) {
-                    // Iterate through all cells in the row
-                    for (Cell cell : row) {
-                        extractedText.append(cell.toString()).append("\t");
-                    }
-                    extractedText.append("\n");
-                }
-            }
+            // Stream the sheets from the temporary file or the in-memory content
+            pkg = openPackage(source);
+            new ExcelStreamTransformer(excelMaxRows, excelMaxColumns, excelChunkChars)
+                    .transform(pkg, chunk -> extractedText.append(chunk).append("\n\n"));
 
             return extractedText.toString();
 
@@ -282,13 +806,9 @@ public class FileStep extends  BaseStep {
             System.err.println("Error extracting text from Excel: " + e.getMessage());
             return ""; // Return empty string on error
         } finally {
-            // Close the workbook to release resources
-            if (workbook != null) {
-                try {
-                    workbook.close();
-                } catch (IOException e) {
-                    System.err.println("Error closing Excel workbook: " + e.getMessage());
-                }
+            // Release the package without writing it back
+            if (pkg != null) {
+                pkg.revert();
             }
         }
     }
@@ -300,36 +820,24 @@ public class FileStep extends  BaseStep {
      * @return the extracted text from the PDF file
      */
     public String extractTextFromPdf(ByteArrayInputStream pdfInputStream) {
-        PDDocument document = null;
-        try {
-           
-            // Load the PDF document from the InputStream
-            byte[] pdfBytes = IOUtils.toByteArray(pdfInputStream);
-            document = org.apache.pdfbox.Loader.loadPDF(pdfBytes);
-            String text = getImagebase64Text(document,0,3);
-            // Create a PDFTextStripper to extract text
-            //PDFTextStripper pdfStripper = new PDFTextStripper();
-
-            // Get the text from the document
-            //String text = pdfStripper.getText(document);
-
-            return text;
+        return extractTextFromPdf(DocumentSource.of(pdfInputStream.readAllBytes(), null));
+    }
 
+    /**
+     * Extracts text content from a PDF document the way the step does: the text layer of
+     * each page, with pages without one transcribed by the vision model. The text is
+     * cached by content hash like the step's own extractions.
+     *
+     * @param source the downloaded document
+     * @return the extracted text from the PDF file, or an empty string if it cannot be read
+     */
+    public String extractTextFromPdf(DocumentSource source) {
+        try {
+            String text = extract(source).data;
+            return text != null ? text : "";
         } catch (IOException e) {
-            System.err.println("Error extracting text from PDF: " + e.getMessage());
-            return ""; // Return empty string on error
-        } finally {
-            // Close the document to release resources
-            if (document != null) {
-                try {
-                    document.close();
-                } catch (IOException e) {
-                    System.err.println("Error closing PDF document: " + e.getMessage());
-                }
-            }
-            // The ByteArrayInputStream itself doesn't need to be explicitly closed in a finally block
-            // because it doesn't hold external resources that need to be released in the same way
-            // as a file stream or network stream. Its data is in memory.
+            logger.error("Error extracting text from PDF: {}", e.getMessage(), e);
+            return "";
         }
     }
 }
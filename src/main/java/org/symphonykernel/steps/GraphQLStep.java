@@ -3,16 +3,36 @@ package org.symphonykernel.steps;
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.symphonykernel.ExecutionContext;
 import org.symphonykernel.Knowledge;
 import org.symphonykernel.RestRequestTemplate;
+import org.symphonykernel.transformer.JsonTransformer;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
@@ -21,24 +41,153 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
  * <p>This class extends {@link RESTStep} to provide functionality for handling
  * GraphQL-specific requests and responses.
  * 
+ * <p>When {@code symphony.graphql.batch.mode} is set, looped invocations of the same
+ * query can be sent in batches of {@code symphony.graphql.batch.size}: either merged
+ * into one document using field aliases ({@code alias}) or posted as a JSON array
+ * using the server's array-batch protocol ({@code array}). Errors of a merged document
+ * are handed to the invocation whose alias they name, errors of an array batch to the
+ * invocation at the same position. Documents that cannot be merged, and array batches
+ * not answered with one result per invocation, are executed one invocation at a time.
+ * 
+ * <p>When {@code symphony.graphql.persisted.queries} is enabled, requests follow the
+ * automatic persisted query protocol: only the SHA-256 hash of the document is sent
+ * first, and the full text is sent on a {@code PersistedQueryNotFound} miss. Endpoints
+ * answering {@code PersistedQueryNotSupported} are remembered and get the full text.
+ * 
  * @version 1.0
  * @since 1.0
  */
 @Service("GraphQLStep")
 public class GraphQLStep extends RESTStep {
 
+    private static final Logger logger = LoggerFactory.getLogger(GraphQLStep.class);
+
     private static final String QUERY_KEY = "query";
     private static final String VARIABLES_KEY = "variables";
+    private static final String DATA_KEY = "data";
+    private static final String BATCH_ALIAS = "alias";
+    private static final String BATCH_ARRAY = "array";
+    private static final String EXTENSIONS_KEY = "extensions";
+    private static final String PERSISTED_QUERY_KEY = "persistedQuery";
+    private static final String NOT_FOUND = "PersistedQueryNotFound";
+    private static final String NOT_FOUND_CODE = "PERSISTED_QUERY_NOT_FOUND";
+    private static final String NOT_SUPPORTED = "PersistedQueryNotSupported";
+    private static final String NOT_SUPPORTED_CODE = "PERSISTED_QUERY_NOT_SUPPORTED";
+
+    @Value("${symphony.graphql.persisted.queries:false}")
+    private boolean persistedQueries;
+
+    private final Map<String, String> queryHashes = new ConcurrentHashMap<>();
+    private final Map<String, String> resourceQueries = new ConcurrentHashMap<>();
+    private final Set<String> unsupportedEndpoints = ConcurrentHashMap.newKeySet();
+
+    @Value("${symphony.graphql.batch.mode:none}")
+    private String batchMode;
+
+    @Value("${symphony.graphql.batch.size:25}")
+    private int batchSize;
 
     /**
-     * Returns the default {@link RestRequestTemplate} for the execution context.
+     * Resolves the {@link RestRequestTemplate} of the knowledge. The knowledge data is
+     * either the GraphQL document itself, sent with the default template, or a JSON
+     * template as used by {@link RESTStep} whose {@code BodyTemplate} holds the document,
+     * so that settings such as {@code MaxRetries}, {@code Hedge} or {@code Idempotent}
+     * can be given per knowledge.
      * 
      * @param ctx the execution context
-     * @return the default request template
+     * @return the request template
+     * @throws JsonProcessingException never for a plain GraphQL document
+     */
+    @Override
+    protected RestRequestTemplate getTemplate(ExecutionContext ctx) throws JsonProcessingException {
+        String data = ctx.getKnowledge().getData();
+        if (data == null || !data.stripLeading().startsWith("{") || !isJsonObject(data)) {
+            return RestRequestTemplate.getDefault();
+        }
+        return super.getTemplate(ctx);
+    }
+
+    private boolean isJsonObject(String data) {
+        try {
+            return objectMapper.readTree(data).isObject();
+        } catch (JsonProcessingException e) {
+            // A query in shorthand form, e.g. "{ user { id } }"
+            return false;
+        }
+    }
+
+    /**
+     * Gets the GraphQL document of the knowledge, taken from the template when the
+     * knowledge data is a JSON template.
+     *
+     * @param ctx the execution context holding the knowledge and resolved template
+     * @return the document
+     */
+    protected String getDocument(ExecutionContext ctx) {
+        RestRequestTemplate tmpl = ctx.getTmplate();
+        if (tmpl != null && tmpl.getBodyTemplate() != null && tmpl.getBodyTemplate().isTextual()) {
+            return tmpl.getBodyTemplate().asText();
+        }
+        return ctx.getKnowledge() != null ? ctx.getKnowledge().getData() : null;
+    }
+
+    /**
+     * GraphQL requests are sent as POST; an explicit {@code Idempotent} flag on the
+     * template decides, otherwise documents made only of queries are safe to retry or
+     * hedge and anything else, mutations and subscriptions included, is not.
+     *
+     * @param ctx    the execution context
+     * @param method the HTTP method of the request
+     * @return true if the request can be repeated
      */
     @Override
-    protected RestRequestTemplate getTemplate(ExecutionContext ctx) {
-        return RestRequestTemplate.getDefault();
+    protected boolean isIdempotent(ExecutionContext ctx, HttpMethod method) {
+        RestRequestTemplate tmpl = ctx.getTmplate();
+        if (tmpl != null && tmpl.getIdempotent() != null) {
+            return tmpl.getIdempotent();
+        }
+        return isQueryDocument(getDocument(ctx));
+    }
+
+    /**
+     * Checks whether every operation of a GraphQL document is a query. Comments, commas,
+     * fragment definitions and variable definitions are skipped; a document that cannot
+     * be read counts as not a query.
+     *
+     * @param document the GraphQL document
+     * @return true if the document holds at least one operation and only queries
+     */
+    static boolean isQueryDocument(String document) {
+        if (document == null) {
+            return false;
+        }
+        boolean query = false;
+        int i = skipIgnored(document, 0);
+        while (i < document.length()) {
+            boolean fragment = false;
+            if (document.charAt(i) != '{') {
+                int end = nameEnd(document, i);
+                String keyword = document.substring(i, end);
+                if (keyword.equals("fragment")) {
+                    fragment = true;
+                } else if (!keyword.equals("query")) {
+                    return false;
+                }
+            }
+            int open = indexOfBody(document, i);
+            if (open < 0) {
+                return false;
+            }
+            int close;
+            try {
+                close = indexOfMatchingBrace(document, open);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+            query |= !fragment;
+            i = skipIgnored(document, close + 1);
+        }
+        return query;
     }
 
     /**
@@ -50,7 +199,7 @@ public class GraphQLStep extends RESTStep {
     @Override
     protected ObjectNode createRequestBody(ExecutionContext ctx) {
         JsonNode variables = ctx.getVariables();
-        String data = ctx.getKnowledge().getData();
+        String data = getDocument(ctx);
         ObjectNode body = objectMapper.createObjectNode();
         // body.put("operationName", null);
         body.put(QUERY_KEY, data);
@@ -67,10 +216,625 @@ public class GraphQLStep extends RESTStep {
      */
     @Override
     protected JsonNode processResponse(ExecutionContext ctx, JsonNode root) {
-        JsonNode res = root.path("data");
+        JsonNode res = root.path(DATA_KEY);
         return res;
     }
 
+    /**
+     * Sends the request as an automatic persisted query when enabled: the hash is sent
+     * first and the full document only when the server does not know the hash yet.
+     * 
+     * @param ctx the execution context containing url, headers and body
+     * @return the JSON node representing the API response
+     */
+    @Override
+    protected JsonNode invokeAPI(ExecutionContext ctx) {
+        JsonNode body = ctx.getBody();
+        if (!persistedQueries || !(body instanceof ObjectNode) || !body.hasNonNull(QUERY_KEY)
+                || unsupportedEndpoints.contains(ctx.getUrl())) {
+            return super.invokeAPI(ctx);
+        }
+        ObjectNode full = (ObjectNode) body;
+        String query = full.get(QUERY_KEY).asText();
+        ObjectNode extensions = objectMapper.createObjectNode();
+        extensions.putObject(PERSISTED_QUERY_KEY)
+                .put("version", 1)
+                .put("sha256Hash", queryHashes.computeIfAbsent(query, GraphQLStep::sha256));
+        full.set(EXTENSIONS_KEY, extensions);
+        ObjectNode hashed = objectMapper.createObjectNode();
+        hashed.set(VARIABLES_KEY, full.get(VARIABLES_KEY));
+        hashed.set(EXTENSIONS_KEY, extensions);
+
+        String errors;
+        JsonNode root = null;
+        try {
+            ctx.setBody(hashed);
+            root = super.invokeAPI(ctx);
+            errors = root != null ? root.path("errors").toString() : "";
+        } catch (HttpClientErrorException e) {
+            errors = e.getResponseBodyAsString();
+            if (!isPersistedQueryError(errors)) {
+                throw e;
+            }
+        } finally {
+            ctx.setBody(full);
+        }
+        if (!isPersistedQueryError(errors)) {
+            return root;
+        }
+        if (errors.contains(NOT_SUPPORTED) || errors.contains(NOT_SUPPORTED_CODE)) {
+            logger.info("Persisted queries not supported by {}", ctx.getUrl());
+            unsupportedEndpoints.add(ctx.getUrl());
+            full.remove(EXTENSIONS_KEY);
+        } else {
+            logger.debug("Persisted query miss on {}, sending full document", ctx.getUrl());
+        }
+        return super.invokeAPI(ctx);
+    }
+
+    private static boolean isPersistedQueryError(String errors) {
+        return errors != null && (errors.contains(NOT_FOUND) || errors.contains(NOT_FOUND_CODE)
+                || errors.contains(NOT_SUPPORTED) || errors.contains(NOT_SUPPORTED_CODE));
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Checks whether looped invocations should be batched.
+     * 
+     * @return true if a batch mode is configured
+     */
+    public boolean isBatchingEnabled() {
+        return BATCH_ALIAS.equalsIgnoreCase(batchMode) || BATCH_ARRAY.equalsIgnoreCase(batchMode);
+    }
+
+    /**
+     * Executes the knowledge named in the context once per variables element, sending the
+     * invocations in batches. Each result has the same shape as {@link #executeQueryByName}.
+     * 
+     * @param context       the execution context holding the knowledge name and headers
+     * @param variablesList the variables of each invocation
+     * @return the results in the same order as {@code variablesList}
+     */
+    public List<JsonNode> executeBatchByName(ExecutionContext context, List<JsonNode> variablesList) {
+        Knowledge kb = knowledgeBase.GetByName(context.getName());
+        List<JsonNode> results = new ArrayList<>(variablesList.size());
+        if (kb == null) {
+            variablesList.forEach(v -> results.add(null));
+            return results;
+        }
+        context.setKnowledge(kb);
+        List<JsonNode> converted = new ArrayList<>(variablesList.size());
+        JsonTransformer transformer = new JsonTransformer();
+        for (JsonNode var : variablesList) {
+            if (context.getConvert()) {
+                try {
+                    var = transformer.compareAndReplaceJson(kb.getParams(), var);
+                } catch (Exception e) {
+                    logger.error("Error in Json Transformation", e);
+                }
+            }
+            converted.add(var);
+        }
+        int size = Math.max(batchSize, 1);
+        for (int from = 0; from < converted.size(); from += size) {
+            results.addAll(executeBatch(context, kb, converted.subList(from, Math.min(converted.size(), from + size))));
+        }
+        ArrayNode all = objectMapper.createArrayNode();
+        results.forEach(all::add);
+        saveStepData(context, all);
+        return results;
+    }
+
+    private List<JsonNode> executeBatch(ExecutionContext context, Knowledge kb, List<JsonNode> batch) {
+        List<JsonNode> results = new ArrayList<>(batch.size());
+        try {
+            context.setTmplate(getTemplate(context))
+                    .setHeaders(createRequestHeader(context))
+                    .setMethod(context.getTmplate().getMethod())
+                    .setUrl(kb.getUrl());
+            String document = getDocument(context);
+            logger.info("Executing GraphQL {} as batch of {} ({})", kb.getName(), batch.size(), batchMode);
+            if (BATCH_ARRAY.equalsIgnoreCase(batchMode)) {
+                ArrayNode body = objectMapper.createArrayNode();
+                for (JsonNode var : batch) {
+                    body.add(objectMapper.createObjectNode().put(QUERY_KEY, document).set(VARIABLES_KEY, var));
+                }
+                context.setBody(body);
+                JsonNode root = invokeAPI(context);
+                if (root == null || !root.isArray() || root.size() != batch.size()) {
+                    logger.info("GraphQL {} did not answer the batch with {} results, executing the invocations one by one", kb.getName(), batch.size());
+                    return executeEach(context, batch);
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    ArrayNode result = objectMapper.createArrayNode().add(root.get(i).path(DATA_KEY));
+                    JsonNode errors = root.get(i).path("errors");
+                    if (errors.isArray() && !errors.isEmpty()) {
+                        result.add(objectMapper.createObjectNode().set("errors", errors));
+                    }
+                    results.add(result);
+                }
+            } else {
+                String merged;
+                try {
+                    merged = aliasQuery(document, batch.size());
+                } catch (IllegalArgumentException e) {
+                    logger.info("GraphQL {} cannot be merged ({}), executing {} invocations one by one", kb.getName(), e.getMessage(), batch.size());
+                    return executeEach(context, batch);
+                }
+                ObjectNode body = objectMapper.createObjectNode();
+                body.put(QUERY_KEY, merged);
+                ObjectNode variables = body.putObject(VARIABLES_KEY);
+                for (int i = 0; i < batch.size(); i++) {
+                    JsonNode var = batch.get(i);
+                    if (var != null && var.isObject()) {
+                        Iterator<Map.Entry<String, JsonNode>> fields = var.fields();
+                        while (fields.hasNext()) {
+                            Map.Entry<String, JsonNode> field = fields.next();
+                            variables.set(field.getKey() + variableSuffix(i), field.getValue());
+                        }
+                    }
+                }
+                context.setBody(body);
+                JsonNode root = invokeAPI(context);
+                JsonNode data = root.path(DATA_KEY);
+                List<ArrayNode> errors = splitErrors(root.path("errors"), batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    String prefix = aliasPrefix(i);
+                    ObjectNode part = objectMapper.createObjectNode();
+                    Iterator<Map.Entry<String, JsonNode>> fields = data.fields();
+                    while (fields.hasNext()) {
+                        Map.Entry<String, JsonNode> field = fields.next();
+                        if (field.getKey().startsWith(prefix)) {
+                            part.set(field.getKey().substring(prefix.length()), field.getValue());
+                        }
+                    }
+                    ArrayNode result = objectMapper.createArrayNode().add(part);
+                    if (!errors.get(i).isEmpty()) {
+                        result.add(objectMapper.createObjectNode().set("errors", errors.get(i)));
+                    }
+                    results.add(result);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error executing GraphQL batch {}", kb.getName(), e);
+            results.clear();
+            for (int i = 0; i < batch.size(); i++) {
+                ObjectNode err = objectMapper.createObjectNode();
+                err.put("errors", e.getMessage());
+                results.add(objectMapper.createArrayNode().add(err));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Executes each invocation of a batch as its own request, for documents that cannot be
+     * merged.
+     */
+    private List<JsonNode> executeEach(ExecutionContext context, List<JsonNode> batch) {
+        List<JsonNode> results = new ArrayList<>(batch.size());
+        for (JsonNode var : batch) {
+            ArrayNode result = objectMapper.createArrayNode();
+            try {
+                context.setVariables(var);
+                context.setBody(createRequestBody(context));
+                result.add(processResponse(context, invokeAPI(context)));
+            } catch (Exception e) {
+                ObjectNode err = objectMapper.createObjectNode();
+                err.put("errors", e.getMessage());
+                result.add(err);
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Assigns the errors of a merged response to the copies they belong to, using the
+     * alias at the head of each error's {@code path}, which is mapped back to the field
+     * name of the original document. Errors without a path, such as validation errors,
+     * belong to every copy.
+     *
+     * @param errors the {@code errors} array of the response, may be missing
+     * @param count  the number of copies
+     * @return the errors of each copy
+     */
+    static List<ArrayNode> splitErrors(JsonNode errors, int count) {
+        List<ArrayNode> split = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            split.add(JsonNodeFactory.instance.arrayNode());
+        }
+        if (errors == null || !errors.isArray()) {
+            return split;
+        }
+        for (JsonNode error : errors) {
+            String head = error.path("path").path(0).asText("");
+            int copy = copyOfAlias(head, count);
+            if (copy < 0) {
+                split.forEach(list -> list.add(error.deepCopy()));
+                continue;
+            }
+            ObjectNode mapped = error.deepCopy();
+            ArrayNode path = (ArrayNode) mapped.get("path");
+            path.set(0, JsonNodeFactory.instance.textNode(head.substring(aliasPrefix(copy).length())));
+            split.get(copy).add(mapped);
+        }
+        return split;
+    }
+
+    private static int copyOfAlias(String alias, int count) {
+        for (int i = 0; i < count; i++) {
+            if (alias.startsWith(aliasPrefix(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String aliasPrefix(int index) {
+        return "b" + index + "_";
+    }
+
+    private static String variableSuffix(int index) {
+        return "_b" + index;
+    }
+
+    /**
+     * Merges {@code count} copies of a GraphQL operation into one document. Top-level fields
+     * of copy {@code i} are aliased with the prefix {@code b<i>_} and its variables renamed
+     * with the suffix {@code _b<i>}. Fragment definitions are kept once, or copied per
+     * operation copy with the same suffix when they use variables. Operation names,
+     * directives and comments are preserved.
+     * 
+     * @param query the GraphQL document containing a single operation
+     * @param count the number of copies
+     * @return the merged document
+     * @throws IllegalArgumentException if the document cannot be aliased (several operations,
+     *                                  top-level fragment spreads, unbalanced braces)
+     */
+    static String aliasQuery(String query, int count) {
+        String operationHeader = null;
+        String selection = null;
+        List<String> fragments = new ArrayList<>();
+        Set<String> fragmentNames = new HashSet<>();
+        int i = skipIgnored(query, 0);
+        while (i < query.length()) {
+            int open = indexOfBody(query, i);
+            if (open < 0) {
+                throw new IllegalArgumentException("GraphQL document has no selection set");
+            }
+            int close = indexOfMatchingBrace(query, open);
+            String header = query.substring(i, open).strip();
+            if (header.startsWith("fragment") && nameEnd(header, 0) == "fragment".length()) {
+                fragments.add(query.substring(i, close + 1));
+                int name = skipIgnored(header, "fragment".length());
+                fragmentNames.add(header.substring(name, nameEnd(header, name)));
+            } else if (selection != null) {
+                throw new IllegalArgumentException("GraphQL document has more than one operation");
+            } else {
+                operationHeader = removeComments(header);
+                selection = query.substring(open + 1, close);
+            }
+            i = skipIgnored(query, close + 1);
+        }
+        if (selection == null) {
+            throw new IllegalArgumentException("GraphQL document has no operation");
+        }
+
+        // Operation keyword and name, variable definitions, then directives
+        String operation = operationHeader.isEmpty() ? "query" : operationHeader;
+        String definitions = null;
+        String directives = "";
+        int paren = indexOfOutside(operation, '(');
+        if (paren >= 0) {
+            int end = indexOfMatchingParen(operation, paren);
+            definitions = operation.substring(paren + 1, end);
+            directives = operation.substring(end + 1).strip();
+            operation = operation.substring(0, paren).strip();
+        }
+        boolean copyFragments = fragments.stream().anyMatch(fragment -> renameVariables(fragment, 0).length() != fragment.length());
+
+        StringBuilder defs = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+        StringBuilder definitionsOut = new StringBuilder();
+        for (int copy = 0; copy < count; copy++) {
+            if (definitions != null && !definitions.isBlank()) {
+                if (defs.length() > 0) {
+                    defs.append(", ");
+                }
+                defs.append(renameVariables(definitions, copy));
+            }
+            String part = renameVariables(selection, copy);
+            if (copyFragments) {
+                part = renameFragments(part, fragmentNames, copy);
+                for (String fragment : fragments) {
+                    definitionsOut.append('\n').append(renameFragments(renameVariables(fragment, copy), fragmentNames, copy));
+                }
+            }
+            body.append(aliasTopLevelFields(part, aliasPrefix(copy))).append('\n');
+        }
+        if (!copyFragments) {
+            fragments.forEach(fragment -> definitionsOut.append('\n').append(fragment));
+        }
+        StringBuilder merged = new StringBuilder(operation);
+        if (defs.length() > 0) {
+            merged.append('(').append(defs).append(')');
+        }
+        if (!directives.isEmpty()) {
+            // Directives apply to the merged operation once; every copy declares the same variables
+            merged.append(' ').append(renameVariables(directives, 0));
+        }
+        return merged.append(" {\n").append(body).append('}').append(definitionsOut).toString();
+    }
+
+    /**
+     * Renames the variable references of a GraphQL fragment of text, leaving strings and
+     * comments alone.
+     */
+    private static String renameVariables(String text, int index) {
+        StringBuilder out = new StringBuilder(text.length() + 16);
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int next = i + 1;
+            if (c == '"') {
+                next = Math.min(skipString(text, i) + 1, text.length());
+            } else if (c == '#') {
+                next = skipComment(text, i);
+            } else if (c == '$') {
+                int end = nameEnd(text, i + 1);
+                if (end > i + 1) {
+                    out.append(text, i, end).append(variableSuffix(index));
+                    i = end;
+                    continue;
+                }
+            }
+            out.append(text, i, next);
+            i = next;
+        }
+        return out.toString();
+    }
+
+    /**
+     * Suffixes fragment names, in definitions and spreads, with the suffix of one copy.
+     */
+    private static String renameFragments(String text, Set<String> fragmentNames, int index) {
+        StringBuilder out = new StringBuilder(text.length() + 16);
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int next = i + 1;
+            if (c == '"') {
+                next = Math.min(skipString(text, i) + 1, text.length());
+            } else if (c == '#') {
+                next = skipComment(text, i);
+            } else if (text.startsWith("...", i) || (text.startsWith("fragment", i) && nameEnd(text, i) == i + "fragment".length()
+                    && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1))))) {
+                int start = skipIgnored(text, i + (c == '.' ? 3 : "fragment".length()));
+                int end = nameEnd(text, start);
+                String name = text.substring(start, end);
+                if (fragmentNames.contains(name)) {
+                    out.append(text, i, end).append(variableSuffix(index));
+                    i = end;
+                    continue;
+                }
+                next = c == '.' ? i + 3 : end;
+            }
+            out.append(text, i, next);
+            i = next;
+        }
+        return out.toString();
+    }
+
+    private static String removeComments(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int next = i + 1;
+            if (c == '"') {
+                next = Math.min(skipString(text, i) + 1, text.length());
+            } else if (c == '#') {
+                i = skipComment(text, i);
+                continue;
+            }
+            out.append(text, i, next);
+            i = next;
+        }
+        return out.toString().strip();
+    }
+
+    /**
+     * Finds a character outside of strings and comments.
+     */
+    private static int indexOfOutside(String text, char target) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                i = skipString(text, i);
+            } else if (c == '#') {
+                i = skipComment(text, i);
+            } else if (c == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfMatchingParen(String text, int open) {
+        int depth = 0;
+        for (int i = open; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                i = skipString(text, i);
+            } else if (c == '#') {
+                i = skipComment(text, i);
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unbalanced parentheses in GraphQL document");
+    }
+
+    /**
+     * Finds the opening brace of the definition starting at {@code from}, outside of
+     * argument or variable lists, strings and comments.
+     */
+    private static int indexOfBody(String query, int from) {
+        int depth = 0;
+        for (int i = from; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '"') {
+                i = skipString(query, i);
+            } else if (c == '#') {
+                i = skipComment(query, i);
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{' && depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfMatchingBrace(String query, int open) {
+        int depth = 0;
+        for (int i = open; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '"') {
+                i = skipString(query, i);
+            } else if (c == '#') {
+                i = skipComment(query, i);
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unbalanced braces in GraphQL document");
+    }
+
+    private static int skipString(String text, int start) {
+        if (text.startsWith("\"\"\"", start)) {
+            int end = text.indexOf("\"\"\"", start + 3);
+            return end < 0 ? text.length() : end + 2;
+        }
+        int i = start + 1;
+        while (i < text.length() && text.charAt(i) != '"') {
+            if (text.charAt(i) == '\\') {
+                i++;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Gets the index of the line break ending the comment at {@code start}.
+     */
+    private static int skipComment(String text, int start) {
+        int end = text.indexOf('\n', start);
+        return end < 0 ? text.length() : end;
+    }
+
+    /**
+     * Skips white space, commas and comments.
+     */
+    private static int skipIgnored(String text, int from) {
+        int i = from;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '#') {
+                i = skipComment(text, i);
+            } else if (Character.isWhitespace(c) || c == ',' || c == '\uFEFF') {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static int nameEnd(String text, int from) {
+        int end = from;
+        while (end < text.length() && (Character.isLetterOrDigit(text.charAt(end)) || text.charAt(end) == '_')) {
+            end++;
+        }
+        return end;
+    }
+
+    private static String aliasTopLevelFields(String selection, String prefix) {
+        StringBuilder out = new StringBuilder(selection.length() + 64);
+        int depth = 0;
+        char previous = '{';
+        int i = 0;
+        while (i < selection.length()) {
+            char c = selection.charAt(i);
+            if (c == '"') {
+                int end = skipString(selection, i);
+                out.append(selection, i, Math.min(end + 1, selection.length()));
+                i = end + 1;
+                continue;
+            }
+            if (c == '#') {
+                int end = selection.indexOf('\n', i);
+                end = end < 0 ? selection.length() : end;
+                out.append(selection, i, end);
+                i = end;
+                continue;
+            }
+            if (c == '(' || c == '{') {
+                depth++;
+            } else if (c == ')' || c == '}') {
+                depth--;
+            }
+            if (depth == 0 && c == '.') {
+                throw new IllegalArgumentException("Top-level fragment spreads cannot be aliased");
+            }
+            if (depth == 0 && (Character.isLetter(c) || c == '_')) {
+                int end = i;
+                while (end < selection.length() && (Character.isLetterOrDigit(selection.charAt(end)) || selection.charAt(end) == '_')) {
+                    end++;
+                }
+                String name = selection.substring(i, end);
+                if (previous == ':' || previous == '@') {
+                    out.append(name);
+                } else {
+                    int next = end;
+                    while (next < selection.length() && Character.isWhitespace(selection.charAt(next))) {
+                        next++;
+                    }
+                    boolean aliased = next < selection.length() && selection.charAt(next) == ':';
+                    out.append(prefix).append(name);
+                    if (!aliased) {
+                        out.append(": ").append(name);
+                    }
+                }
+                previous = 'a';
+                i = end;
+                continue;
+            }
+            if (!Character.isWhitespace(c) && (depth == 0 || (depth == 1 && (c == '(' || c == '{')))) {
+                previous = c;
+            }
+            out.append(c);
+            i++;
+        }
+        return out.toString();
+    }
+
     /**
      * Executes a GraphQL query using a resource file.
      * 
@@ -83,10 +847,13 @@ public class GraphQLStep extends RESTStep {
      */
     public JsonNode executeGraphqlQueryByResource(String url, Resource resource, JsonNode variables, HttpHeaders headers)
             throws Exception {
-        InputStream inputStream = resource.getInputStream();
-        String query = null;
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            query = reader.lines().collect(Collectors.joining("\n"));
+        String query = resourceQueries.get(resource.getDescription());
+        if (query == null) {
+            InputStream inputStream = resource.getInputStream();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
+                query = reader.lines().collect(Collectors.joining("\n"));
+            }
+            resourceQueries.put(resource.getDescription(), query);
         }
         ExecutionContext context = new ExecutionContext();      
         context.setHeaders(headers);
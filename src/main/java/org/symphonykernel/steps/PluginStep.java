@@ -11,9 +11,12 @@ import org.symphonykernel.ExecutionContext;
 import org.symphonykernel.FlowItem;
 import org.symphonykernel.Knowledge;
 import org.symphonykernel.LLMRequest;
+import org.symphonykernel.PluginDefinition;
+import org.symphonykernel.config.Constants;
 import org.symphonykernel.core.IAIClient;
 import org.symphonykernel.core.IPluginLoader;
 import org.symphonykernel.core.IknowledgeBase;
+import org.symphonykernel.providers.PluginDefinitionProvider;
 import org.symphonykernel.transformer.TemplateResolver;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -41,6 +44,9 @@ public class PluginStep extends BaseStep {
     @Autowired
     IknowledgeBase knowledgeBase;
 
+    @Autowired
+    PluginDefinitionProvider pluginDefinitions;
+
     public PluginStep() {
 
     }
@@ -54,12 +60,15 @@ public class PluginStep extends BaseStep {
             systemPrompt = kb.getSystemPrompt();
         }
         logger.info("Executing Plugin " + context.getKnowledge().getName());
-        JsonNode paramNode = getParamNode(context.getKnowledge().getData());
-        String plugin = paramNode.get("Tool").asText();
+        PluginDefinition definition = pluginDefinitions.get(context.getKnowledge());
+        String plugin = definition.getTool();
+        if (!definition.hasTool()) {
+            throw new IllegalArgumentException("Tool not specified in knowledge data");
+        }
 
        
-        if (paramNode.has("SystemPrompt")) {
-            systemPrompt = paramNode.get("SystemPrompt").asText();
+        if (definition.getSystemPrompt() != null) {
+            systemPrompt = definition.getSystemPrompt();
         }
         FlowItem item = context.getCurrentFlowItem();
         if (item != null && item.SystemPrompt != null) {
@@ -68,15 +77,20 @@ public class PluginStep extends BaseStep {
 
         logger.info("Parsed Plugin: " + plugin);
         if (systemPrompt != null) {
-            systemPrompt = templateResolver.resolvePlaceholders(systemPrompt, context.getResolvedValues());
+            systemPrompt = templateResolver.resolvePlaceholders(TemplateResolver.markCacheBreak(systemPrompt), context.getResolvedValues());
         }
         String params = ". Consider context parameters of first priority as " + context.getVariables() + " and second priority as " + context.getResolvedValues();
 
         Object tool;
 			  StringBuilder responseAccumulator = new StringBuilder();
 			try {
-				tool = pluginLoader.createObject(plugin);
-				 return azureOpenAIHelper.streamExecute(new LLMRequest(systemPrompt + params, context.getUsersQuery(), new Object[]{tool}, context.getModelName())).doOnNext(responseAccumulator::append) // Capture each chunk as it flies by
+				tool = pluginLoader.createObject(plugin, context.getRequestId());
+				 return azureOpenAIHelper.streamExecute(new LLMRequest(systemPrompt + params, context.getUsersQuery(), new Object[]{tool}, context.getModelName())).doOnNext(chunk -> {
+					 // Capture each chunk as it flies by, leaving out progress lines
+					 if (!Constants.isProgress(chunk)) {
+						 responseAccumulator.append(chunk);
+					 }
+				 })
 	            		 .doFinally(signalType -> {
 	                    	 saveStepData(context, responseAccumulator.toString());
 	                     }); 
@@ -96,11 +110,14 @@ public class PluginStep extends BaseStep {
              systemPrompt = kb.getSystemPrompt();
          }
          logger.info("Executing Plugin " + context.getKnowledge().getName());
-         JsonNode paramNode = getParamNode(context.getKnowledge().getData());
-         String plugin = paramNode.get("Tool").asText();
+         PluginDefinition definition = pluginDefinitions.get(context.getKnowledge());
+         String plugin = definition.getTool();
+         if (!definition.hasTool()) {
+             throw new IllegalArgumentException("Tool not specified in knowledge data");
+         }
 
-         if (paramNode.has("SystemPrompt")) {
-             systemPrompt = paramNode.get("SystemPrompt").asText();
+         if (definition.getSystemPrompt() != null) {
+             systemPrompt = definition.getSystemPrompt();
          }
          FlowItem item = context.getCurrentFlowItem();
          if (item != null && item.SystemPrompt != null) {
@@ -109,13 +126,13 @@ public class PluginStep extends BaseStep {
 
          logger.info("Parsed Plugin: " + plugin);
          if (systemPrompt != null) {
-             systemPrompt = templateResolver.resolvePlaceholders(systemPrompt, context.getResolvedValues());
+             systemPrompt = templateResolver.resolvePlaceholders(TemplateResolver.markCacheBreak(systemPrompt), context.getResolvedValues());
          }
          String params = ". Consider context parameters of first priority as " + context.getVariables() + " and second priority as " + context.getResolvedValues();
 
          Object tool;
 		try {
-			tool = pluginLoader.createObject(plugin);
+			tool = pluginLoader.createObject(plugin, context.getRequestId());
 			  String msg = azureOpenAIHelper.execute(new LLMRequest(systemPrompt + params, context.getUsersQuery(), new Object[]{tool}, context.getModelName()));
 		         JsonNode jsonNode = objectMapper.readTree(msg);
 
@@ -1,8 +1,25 @@
 package org.symphonykernel.steps;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -10,6 +27,8 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.symphonykernel.ChatResponse;
 import org.symphonykernel.ExecutionContext;
@@ -23,9 +42,19 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 /**
  * RESTStep is a step implementation for executing REST API calls.
  * It provides methods to create request headers, process API responses, and invoke APIs.
+ * <p>
+ * Idempotent calls are retried on 502/503/504 and I/O errors with exponential backoff
+ * and full jitter, and can optionally be hedged: a second request is sent once the first
+ * has been outstanding longer than the observed p95 latency of the knowledge, and the
+ * first successful answer wins. Both behaviours can be configured per knowledge through
+ * the {@link RestRequestTemplate} or globally through {@code symphony.rest.*} properties.
+ * </p>
  */
 @Service("RESTStep")
 public class RESTStep extends BaseStep {
@@ -33,10 +62,77 @@ public class RESTStep extends BaseStep {
     private static final Logger logger = LoggerFactory.getLogger(RESTStep.class);
 
 
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD,
+            HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.OPTIONS);
+    private static final Set<Integer> RETRYABLE_STATUS = Set.of(502, 503, 504);
+
     @Autowired
     IknowledgeBase knowledgeBase;
-    
-   
+
+    @Value("${symphony.rest.retry.max:0}")
+    private int defaultMaxRetries;
+    @Value("${symphony.rest.retry.backoff.ms:200}")
+    private long defaultBackoffMs;
+    @Value("${symphony.rest.retry.backoff.max.ms:5000}")
+    private long maxBackoffMs;
+    @Value("${symphony.rest.hedge.enabled:false}")
+    private boolean defaultHedge;
+    @Value("${symphony.rest.hedge.min.samples:20}")
+    private int hedgeMinSamples;
+    @Value("${symphony.rest.hedge.threadpool.size:10}")
+    private int hedgeThreadPoolSize;
+
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+    private ExecutorService hedgeExecutor;
+
+    /**
+     * Initializes the thread pool used for hedged requests.
+     */
+    @PostConstruct
+    public void init() {
+        hedgeExecutor = Executors.newFixedThreadPool(hedgeThreadPoolSize);
+    }
+
+    /**
+     * Shuts down the thread pool used for hedged requests.
+     */
+    @PreDestroy
+    public void cleanup() {
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the number of retries performed since startup.
+     *
+     * @return the retry count
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * Gets the number of hedged requests sent since startup.
+     *
+     * @return the hedge count
+     */
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    /**
+     * Gets the number of hedged requests that answered before the original request.
+     *
+     * @return the number of hedges won
+     */
+    public long getHedgesWon() {
+        return hedgesWon.get();
+    }
 
     @Override
     public ChatResponse getResponse(ExecutionContext ctx) {
@@ -127,16 +223,152 @@ public class RESTStep extends BaseStep {
         String body = ctx.getBody() != null ? ctx.getBody().toString() : null;
         HttpHeaders headers = ctx.getHeaders();
         HttpMethod method = ctx.getMethod();
+        JsonNode root = callWithRetry(ctx, url, body, headers, method);
+        return root;
+    }
+
+    /**
+     * Determines whether the request can be safely retried or hedged. An explicit
+     * {@code Idempotent} flag on the template wins, otherwise the HTTP method decides.
+     *
+     * @param ctx    the execution context containing the template
+     * @param method the HTTP method of the request
+     * @return true if the request is idempotent
+     */
+    protected boolean isIdempotent(ExecutionContext ctx, HttpMethod method) {
+        RestRequestTemplate tmpl = ctx.getTmplate();
+        if (tmpl != null && tmpl.getIdempotent() != null) {
+            return tmpl.getIdempotent();
+        }
+        return IDEMPOTENT_METHODS.contains(method);
+    }
+
+    private JsonNode callWithRetry(ExecutionContext ctx, String url, String body, HttpHeaders headers, HttpMethod method) {
+        RestRequestTemplate tmpl = ctx.getTmplate();
+        boolean idempotent = isIdempotent(ctx, method);
+        int maxRetries = 0;
+        long backoffMs = defaultBackoffMs;
+        boolean hedge = false;
+        if (idempotent) {
+            maxRetries = tmpl != null && tmpl.getMaxRetries() != null ? tmpl.getMaxRetries() : defaultMaxRetries;
+            backoffMs = tmpl != null && tmpl.getRetryBackoffMs() != null ? tmpl.getRetryBackoffMs() : defaultBackoffMs;
+            hedge = tmpl != null && tmpl.getHedge() != null ? tmpl.getHedge() : defaultHedge;
+        }
+        String key = ctx.getName() != null ? ctx.getName() : url;
+        int attempt = 0;
+        while (true) {
+            try {
+                return hedge ? hedgedCall(key, url, body, headers, method) : timedCall(key, url, body, headers, method);
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries || !isRetryable(e)) {
+                    throw e;
+                }
+                long delay = jitteredBackoff(backoffMs, attempt);
+                attempt++;
+                retryCount.incrementAndGet();
+                logger.warn("Retrying {} {} (attempt {}/{}) in {} ms after: {}", method, url, attempt, maxRetries, delay, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private JsonNode hedgedCall(String key, String url, String body, HttpHeaders headers, HttpMethod method) {
+        String traceId = MDC.get(Constants.LOGGER_TRACE_ID);
+        CompletableFuture<JsonNode> primary = CompletableFuture.supplyAsync(
+                () -> tracedCall(traceId, key, url, body, headers, method), hedgeExecutor);
+        long hedgeDelay = latencies.computeIfAbsent(key, k -> new LatencyWindow()).percentile95(hedgeMinSamples);
+        if (hedgeDelay < 0) {
+            return await(primary);
+        }
+        try {
+            return primary.get(hedgeDelay, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.info("Hedging {} {} after {} ms", method, url, hedgeDelay);
+            hedgeCount.incrementAndGet();
+            CompletableFuture<JsonNode> secondary = CompletableFuture.supplyAsync(
+                    () -> tracedCall(traceId, key, url, body, headers, method), hedgeExecutor);
+            CompletableFuture<JsonNode> winner = new CompletableFuture<>();
+            AtomicInteger failures = new AtomicInteger();
+            primary.whenComplete((res, ex) -> {
+                if (ex == null) {
+                    winner.complete(res);
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(ex);
+                }
+            });
+            secondary.whenComplete((res, ex) -> {
+                if (ex == null) {
+                    if (winner.complete(res)) {
+                        hedgesWon.incrementAndGet();
+                    }
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(ex);
+                }
+            });
+            return await(winner);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + url, e);
+        }
+    }
+
+    private JsonNode await(CompletableFuture<JsonNode> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private RuntimeException unwrap(Exception e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new IllegalStateException(cause.getMessage(), cause);
+    }
+
+    private JsonNode tracedCall(String traceId, String key, String url, String body, HttpHeaders headers, HttpMethod method) {
+        MDC.put(Constants.LOGGER_TRACE_ID, traceId);
+        try {
+            return timedCall(key, url, body, headers, method);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    private JsonNode timedCall(String key, String url, String body, HttpHeaders headers, HttpMethod method) {
+        long start = System.currentTimeMillis();
         JsonNode root = call(url, body, headers, method);
+        latencies.computeIfAbsent(key, k -> new LatencyWindow()).record(System.currentTimeMillis() - start);
         return root;
     }
-    
+
+    private boolean isRetryable(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof HttpServerErrorException) {
+            return RETRYABLE_STATUS.contains(((HttpServerErrorException) e).getStatusCode().value());
+        }
+        return e instanceof ResourceAccessException;
+    }
+
+    private long jitteredBackoff(long baseMs, int attempt) {
+        long cap = Math.min(maxBackoffMs, baseMs * (1L << Math.min(attempt, 20)));
+        return ThreadLocalRandom.current().nextLong(Math.max(cap, 1) + 1);
+    }
     
 	private JsonNode call(String url, String body, HttpHeaders headers, HttpMethod method) {
 		final HttpEntity<String> requestEntity = new HttpEntity<>(body,headers );
-        RestTemplate restTemplate = new RestTemplate();
         ResponseEntity<JsonNode> response;
-        ;
         if (method == HttpMethod.POST) {
             response = restTemplate.postForEntity(url, requestEntity, JsonNode.class);
         } else if (method == HttpMethod.GET) {
@@ -233,4 +465,31 @@ public class RESTStep extends BaseStep {
         }
         return tmp;
     }
+
+    /**
+     * Sliding window of the most recent call latencies of a knowledge, used to derive the hedging delay.
+     */
+    private static class LatencyWindow {
+        private static final int SIZE = 100;
+        private final long[] samples = new long[SIZE];
+        private int count;
+        private int next;
+
+        synchronized void record(long latencyMs) {
+            samples[next] = latencyMs;
+            next = (next + 1) % SIZE;
+            if (count < SIZE) {
+                count++;
+            }
+        }
+
+        synchronized long percentile95(int minSamples) {
+            if (count < Math.max(minSamples, 1)) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(0.95 * count) - 1];
+        }
+    }
 }
@@ -19,6 +19,7 @@ import org.symphonykernel.FlowJson;
 import org.symphonykernel.Knowledge;
 import org.symphonykernel.LLMRequest;
 import org.symphonykernel.QueryType;
+import org.symphonykernel.config.Constants;
 import org.symphonykernel.core.IAIClient;
 import org.symphonykernel.core.IPluginLoader;
 import org.symphonykernel.core.IknowledgeBase;
@@ -135,7 +136,11 @@ public class Symphony extends BaseStep {
                             });
                     })
                 )
-                .doOnNext(responseAccumulator::append)
+                .doOnNext(chunk -> {
+                    if (!Constants.isProgress(chunk)) {
+                        responseAccumulator.append(chunk);
+                    }
+                })
                 .doFinally(signalType -> {
                     saveStepData(ctx, responseAccumulator.toString());
                 });
@@ -264,8 +269,10 @@ public class Symphony extends BaseStep {
     private JsonNode processWithLoopKey(FlowItem item, ExecutionContext ctx, Knowledge kb, JsonNode resolverPayload, String loopKey) {
         if (resolverPayload.isArray()) {
             Map<String, JsonNode> resultPair = new HashMap<>();
+            List<JsonNode> batchResults = getBatchResults(ctx, kb, item, resolverPayload);
+            int index = 0;
             for (JsonNode idNode : resolverPayload) {
-                JsonNode result = getResults(ctx, kb,item, idNode);
+                JsonNode result = batchResults != null ? batchResults.get(index++) : getResults(ctx, kb,item, idNode);
                 if (result.isArray() && result.size() == 1) {
                     result = result.get(0);
                 }
@@ -284,8 +291,10 @@ public class Symphony extends BaseStep {
     private JsonNode processWithoutLoopKey(FlowItem item, ExecutionContext ctx, Knowledge kb, JsonNode resolverPayload) {
         if (resolverPayload.isArray() && !item.isArray()) {
             ArrayNode resultArray = objectMapper.createArrayNode();
+            List<JsonNode> batchResults = getBatchResults(ctx, kb, item, resolverPayload);
+            int index = 0;
             for (JsonNode idNode : resolverPayload) {
-                JsonNode result = getResults(ctx, kb, item,idNode);
+                JsonNode result = batchResults != null ? batchResults.get(index++) : getResults(ctx, kb, item,idNode);
                 if (result.isArray() && result.size() == 1) {
                     resultArray.add(result.get(0));
                 } else {
@@ -310,7 +319,7 @@ public class Symphony extends BaseStep {
     private void processFinalResponse(FlowJson parsed, ExecutionContext ctx, Knowledge _symphony, Map<String, JsonNode> resolvedValues, ArrayNode jsonArray) {
         if (parsed.SystemPrompt != null && !parsed.SystemPrompt.isEmpty()) {
             logger.info("Processing final response");
-            String systemPrompt = templateResolver.resolvePlaceholders(parsed.SystemPrompt, resolvedValues);
+            String systemPrompt = templateResolver.resolvePlaceholders(TemplateResolver.markCacheBreak(parsed.SystemPrompt), resolvedValues);
             String userPrompt = parsed.UserPrompt;
             if (parsed.AdaptiveCardPrompt != null && !parsed.AdaptiveCardPrompt.trim().isEmpty()) {
                 userPrompt = parsed.AdaptiveCardPrompt;
@@ -323,7 +332,7 @@ public class Symphony extends BaseStep {
             if ((systemPrompt.indexOf(JsonTransformer.JSON) >= 0 || systemPrompt.indexOf(TemplateResolver.NO_DATA_FOUND) < 0) &&
                 userPrompt.indexOf(JsonTransformer.JSON) >= 0 || userPrompt.indexOf(TemplateResolver.NO_DATA_FOUND) < 0) {
                 if (_symphony.getTools() != null && _symphony.getTools().length() > 0) {
-                    result = azureOpenAIHelper.execute(new LLMRequest(systemPrompt, userPrompt, loadTools(_symphony.getTools()), ctx.getModelName()));
+                    result = azureOpenAIHelper.execute(new LLMRequest(systemPrompt, userPrompt, loadTools(_symphony.getTools(), ctx.getRequestId()), ctx.getModelName()));
                 } else {
                     result = azureOpenAIHelper.execute(new LLMRequest(systemPrompt, userPrompt, null, ctx.getModelName()));
                 }
@@ -347,7 +356,7 @@ public class Symphony extends BaseStep {
     private Flux<String> processFinalResponseAsStream(FlowJson parsed, ExecutionContext ctx, Knowledge _symphony, Map<String, JsonNode> resolvedValues) {
         if (parsed.SystemPrompt != null && !parsed.SystemPrompt.isEmpty()) {
             logger.info("Processing final response");
-            String systemPrompt = templateResolver.resolvePlaceholders(parsed.SystemPrompt, resolvedValues);
+            String systemPrompt = templateResolver.resolvePlaceholders(TemplateResolver.markCacheBreak(parsed.SystemPrompt), resolvedValues);
             String userPrompt = parsed.UserPrompt;
             if (parsed.AdaptiveCardPrompt != null && !parsed.AdaptiveCardPrompt.trim().isEmpty()) {
                 userPrompt = parsed.AdaptiveCardPrompt;
@@ -362,7 +371,7 @@ public class Symphony extends BaseStep {
                 Flux<String> generatingMsg = Flux.just("Generating output:");
                 if (_symphony.getTools() != null && _symphony.getTools().length() > 0) {
                     return generatingMsg.concatWith(
-                        azureOpenAIHelper.streamExecute(new LLMRequest(systemPrompt, userPrompt, loadTools(_symphony.getTools()), ctx.getModelName()))
+                        azureOpenAIHelper.streamExecute(new LLMRequest(systemPrompt, userPrompt, loadTools(_symphony.getTools(), ctx.getRequestId()), ctx.getModelName()))
                     );
                 } else {
                     return generatingMsg.concatWith(
@@ -452,10 +461,11 @@ public class Symphony extends BaseStep {
      * </p>
      *
      * @param toolsNames comma-separated string of bean names to load
+     * @param requestId  the id of the request the tools are loaded for
      * @return an array of loaded tool objects, or empty array if toolsNames is null/empty
      * @throws org.springframework.beans.BeansException if a bean cannot be found
      */
-    private Object[] loadTools(String toolsNames) {
+    private Object[] loadTools(String toolsNames, String requestId) {
         if (toolsNames == null || toolsNames.isBlank()) {
             logger.warn("No tools specified to load");
             return new Object[0];
@@ -469,7 +479,7 @@ public class Symphony extends BaseStep {
             if (!trimmedName.isEmpty()) {
                 try {
                     
-                    Object tool =  pluginLoader.createObject(trimmedName);
+                    Object tool =  pluginLoader.createObject(trimmedName, requestId);
                     tools.add(tool);
                     logger.info("Successfully loaded tool: {}", trimmedName);
                 } catch (Exception e) {
@@ -496,4 +506,25 @@ public class Symphony extends BaseStep {
         logger.info("Processing time for {} = {} ms", kb.getName(), (endTime - startTime));
         return result;
     }
+
+    /**
+     * Executes a looped GraphQL knowledge as batched requests when batching is enabled.
+     *
+     * @return the per-element results in payload order, or null if the loop must run element by element
+     */
+    private List<JsonNode> getBatchResults(ExecutionContext ctx, Knowledge kb, FlowItem item, JsonNode payload) {
+        if (kb.getType() != QueryType.GRAPHQL || !graphQLHelper.isBatchingEnabled() || payload.size() < 2) {
+            return null;
+        }
+        long startTime = System.currentTimeMillis();
+        ExecutionContext newCtx = new ExecutionContext(ctx);
+        ctx.setCurrentFlowItem(item);
+        newCtx.setName(kb.getName());
+        newCtx.setConvert(true);
+        List<JsonNode> variables = new ArrayList<>(payload.size());
+        payload.forEach(variables::add);
+        List<JsonNode> results = graphQLHelper.executeBatchByName(newCtx, variables);
+        logger.info("Batch processing time for {} x{} = {} ms", kb.getName(), payload.size(), (System.currentTimeMillis() - startTime));
+        return results;
+    }
 }
@@ -9,10 +9,13 @@ import org.symphonykernel.ChatResponse;
 import org.symphonykernel.ExecutionContext;
 import org.symphonykernel.Knowledge;
 import org.symphonykernel.LLMRequest;
+import org.symphonykernel.PluginDefinition;
+import org.symphonykernel.config.Constants;
 import org.symphonykernel.core.IAIClient;
 import org.symphonykernel.core.IPluginLoader;
 import org.symphonykernel.core.IStep;
 import org.symphonykernel.core.IknowledgeBase;
+import org.symphonykernel.providers.PluginDefinitionProvider;
 import org.symphonykernel.transformer.TemplateResolver;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -36,6 +39,9 @@ public class ToolStep extends BaseStep {
     @Autowired
     IknowledgeBase knowledgeBase;
 
+    @Autowired
+    PluginDefinitionProvider pluginDefinitions;
+
     ChatCompletionService chat;
     
     @Autowired
@@ -51,14 +57,11 @@ public class ToolStep extends BaseStep {
             context.setKnowledge(kb);
         }
         logger.info("Executing Tool " + context.getKnowledge().getName());
-        JsonNode paramNode = getParamNode(context.getKnowledge().getData());
-        String plugin = paramNode.get("Tool").asText();
+        PluginDefinition definition = pluginDefinitions.get(context.getKnowledge());
+        String plugin = definition.getTool();
         
-        if (plugin == null || plugin.isEmpty()) {
-            String systemPrompt = null;
-            if (paramNode.has("SystemPrompt") && !paramNode.get("SystemPrompt").isNull()) {
-                systemPrompt = paramNode.get("SystemPrompt").asText();
-            }
+        if (!definition.hasTool()) {
+            String systemPrompt = definition.getSystemPrompt();
             if (systemPrompt != null && !systemPrompt.isEmpty()) {
                 if (TemplateResolver.hasPlaceholders(systemPrompt)) {
                     Map<String, JsonNode> resolvedValues = context.getResolvedValues();
@@ -71,7 +74,7 @@ public class ToolStep extends BaseStep {
             }
         } else {
             logger.info("Using Tool: " + plugin);
-            IStep step = pluginLoader.createObject(plugin, IStep.class);
+            IStep step = pluginLoader.createObject(plugin, IStep.class, context.getRequestId());
             if (step == null) {
                 logger.error("Plugin of type IStep not found: " + plugin);
                 throw new IllegalArgumentException("Plugin not found: " + plugin);
@@ -89,20 +92,17 @@ public class ToolStep extends BaseStep {
              context.setKnowledge(kb);
          }
          logger.info("Executing Tool " + context.getKnowledge().getName());
-         JsonNode paramNode = getParamNode(context.getKnowledge().getData());
-         String plugin = paramNode.get("Tool").asText();
+         PluginDefinition definition = pluginDefinitions.get(context.getKnowledge());
+         String plugin = definition.getTool();
          StringBuilder responseAccumulator = new StringBuilder();
-         if (plugin == null || plugin.isEmpty()) {
-             String systemPrompt = null;
-             if (paramNode.has("SystemPrompt") && !paramNode.get("SystemPrompt").isNull()) {
-                 systemPrompt = paramNode.get("SystemPrompt").asText();
-             }
+         if (!definition.hasTool()) {
+             String systemPrompt = definition.getSystemPrompt();
              if (systemPrompt != null && !systemPrompt.isEmpty()) {
                  if (TemplateResolver.hasPlaceholders(systemPrompt)) {
                      Map<String, JsonNode> resolvedValues = context.getResolvedValues();
                      systemPrompt = templateResolver.resolvePlaceholders(systemPrompt, resolvedValues);
                  }
-                 return azureOpenAIHelper.streamExecute(new LLMRequest(systemPrompt, "", null, context.getModelName())).doOnNext(responseAccumulator::append)
+                 return azureOpenAIHelper.streamExecute(new LLMRequest(systemPrompt, "", null, context.getModelName())).doOnNext(chunk -> accumulate(responseAccumulator, chunk))
                          .doFinally(signalType -> {
                              saveStepData(context, responseAccumulator.toString());
                          });
@@ -111,17 +111,23 @@ public class ToolStep extends BaseStep {
              }
          } else {
              logger.info("Using Tool: " + plugin);
-             IStep step = pluginLoader.createObject(plugin, IStep.class);
+             IStep step = pluginLoader.createObject(plugin, IStep.class, context.getRequestId());
              if (step == null) {
                  logger.error("Plugin of type IStep not found: " + plugin);
                  throw new IllegalArgumentException("Plugin not found: " + plugin);
              }
-             return step.getResponseStream(context).doOnNext(responseAccumulator::append) // Capture each chunk as it flies by
+             return step.getResponseStream(context).doOnNext(chunk -> accumulate(responseAccumulator, chunk)) // Capture each chunk as it flies by
             		 .doFinally(signalType -> {
             	 saveStepData(context, responseAccumulator.toString());
              });
          }
         
-	} 	
+	}
+
+    private static void accumulate(StringBuilder responseAccumulator, String chunk) {
+        if (!Constants.isProgress(chunk)) {
+            responseAccumulator.append(chunk);
+        }
+    }
    
 }
\ No newline at end of file
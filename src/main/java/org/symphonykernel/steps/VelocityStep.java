@@ -1,29 +1,48 @@
 package org.symphonykernel.steps;
 
 import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.resource.loader.StringResourceLoader;
+import org.apache.velocity.runtime.resource.util.StringResourceRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.symphonykernel.ChatResponse;
 import org.symphonykernel.ExecutionContext;
 import org.symphonykernel.Knowledge;
+import org.symphonykernel.config.SymphonyKernelAutoConfiguration;
 import org.symphonykernel.config.VelocityEngineConfig;
 
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 
+import jakarta.annotation.PostConstruct;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
 /**
  * A step implementation that processes Apache Velocity templates.
  * <p>
  * This service uses the Velocity template engine to render templates with data
  * from the execution context. It merges resolved values and input variables
  * with Velocity engine configuration properties to generate the final output.
+ * Templates are parsed once per knowledge version by a dedicated engine, and render
+ * contexts chain to a base context holding the configuration properties. JSON values are
+ * read through {@link org.symphonykernel.transformer.JsonNodeUberspector}, and
+ * {@link #getResponseStream(ExecutionContext)} streams the output as it is rendered.
  * </p>
  */
 @Service
@@ -32,9 +51,37 @@ public class VelocityStep extends BaseStep {
     private static final Logger logger = LoggerFactory.getLogger(VelocityStep.class);
      @Autowired
     private VelocityEngineConfig velocityEngineConfig;
-    static {
-        // Initialize Velocity engine
-        Velocity.init();
+
+    @Autowired
+    @Qualifier("symphonyVelocityEngine")
+    private VelocityEngine velocityEngine;
+
+    /**
+     * A parsed template and the knowledge data it was parsed from.
+     */
+    private static class CompiledTemplate {
+        private final String source;
+        private final Template template;
+
+        CompiledTemplate(String source, Template template) {
+            this.source = source;
+            this.template = template;
+        }
+    }
+
+    @Value("${symphony.velocity.stream.chunk.chars:8192}")
+    private int streamChunkChars;
+
+    private final Map<String, CompiledTemplate> templates = new ConcurrentHashMap<>();
+    private VelocityContext baseContext;
+
+    /**
+     * Builds the base context holding the configured velocity properties, which every
+     * render context chains to.
+     */
+    @PostConstruct
+    public void init() {
+        baseContext = new VelocityContext(new HashMap<>(velocityEngineConfig.getProperties()));
     }
 
     /**
@@ -69,38 +116,13 @@ public class VelocityStep extends BaseStep {
     }
     @Override
 	protected ArrayNode getData(ExecutionContext ctx) {
-    	Map<String, JsonNode> resolvedValues =   ctx.getResolvedValues();   
-        Knowledge template = ctx.getKnowledge();
-        String templateData = template.getData();
-      
-            // Create Velocity context and populate with resolved values
-            VelocityContext velocityContext = new VelocityContext();
-
-            Map<String, Object> allParams = velocityEngineConfig.getProperties();
-              allParams.forEach((key, value) -> {
-            velocityContext.put(key, value);
-        });
-
-            for (Map.Entry<String, JsonNode> entry : resolvedValues.entrySet()) {
-                String key = entry.getKey();
-                JsonNode value = entry.getValue();
-                
-                // Convert JsonNode to appropriate Java object for Velocity
-                Object contextValue = convertJsonNodeToObject(value);
-                velocityContext.put(key, contextValue);
-            }
-            
             // Process template
             StringWriter writer = new StringWriter();
-            boolean result = Velocity.evaluate(velocityContext, writer, "VelocityTemplate", templateData);
-            
-            if (!result) {
-                logger.error("Failed to process Velocity template");
-                throw new RuntimeException("Velocity template processing failed");
-            }
+            render(ctx, writer);
             
             String renderedText = writer.toString();
-            logger.info("Rendered template output: " + renderedText);
+            logger.info("Rendered template {} ({} chars)", ctx.getKnowledge().getName(), renderedText.length());
+            logger.debug("Rendered template output: {}", renderedText);
             
             // Create response with rendered text
             ArrayNode jsonArray = objectMapper.createArrayNode();
@@ -109,7 +131,133 @@ public class VelocityStep extends BaseStep {
             return jsonArray;           
         
     }
-    
+
+    /**
+     * Renders the template straight into the response stream.
+     * <p>
+     * Output is emitted in chunks of {@code symphony.velocity.stream.chunk.chars} characters
+     * as the template is merged, so large documents start reaching the caller before the
+     * render ends. The chunks are JSON-escaped between a leading {@code ["} and a trailing
+     * {@code "]}, so the stream concatenates to the same JSON array string as the
+     * non-streaming response. The whole output is still collected to be saved as step data,
+     * which happens only when the render completes. The render runs on a bounded elastic
+     * thread.
+     * </p>
+     *
+     * @param ctx the execution context containing variables, resolved values, and knowledge
+     * @return the rendered output as a stream of text chunks
+     */
+    @Override
+    public Flux<String> getResponseStream(ExecutionContext ctx) {
+        StringBuilder responseAccumulator = new StringBuilder();
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        return Flux.<String>create(sink -> {
+            sink.next("[\"");
+            try (ChunkWriter writer = new ChunkWriter(chunk -> sink.next(new String(encoder.quoteAsString(chunk))), streamChunkChars)) {
+                render(ctx, writer);
+            } catch (Exception e) {
+                logger.error("Error processing Velocity template", e);
+                sink.error(e);
+                return;
+            }
+            sink.next("\"]");
+            sink.complete();
+        }).subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(responseAccumulator::append)
+                // A failed or cancelled render leaves no partial output behind
+                .doOnComplete(() -> saveStepData(ctx, responseAccumulator.toString()));
+    }
+
+    private void render(ExecutionContext ctx, Writer writer) {
+    	Map<String, JsonNode> resolvedValues =   ctx.getResolvedValues();   
+        Knowledge template = ctx.getKnowledge();
+
+        // Create Velocity context chained to the configured properties and populate with resolved values
+        VelocityContext velocityContext = new VelocityContext(baseContext);
+
+        for (Map.Entry<String, JsonNode> entry : resolvedValues.entrySet()) {
+            String key = entry.getKey();
+            JsonNode value = entry.getValue();
+            
+            // Convert JsonNode to appropriate Java object for Velocity
+            Object contextValue = convertJsonNodeToObject(value);
+            velocityContext.put(key, contextValue);
+        }
+
+        getTemplate(template.getName(), template.getData()).merge(velocityContext, writer);
+    }
+
+    /**
+     * Writer that hands its output to a consumer in chunks of a fixed size.
+     */
+    private static class ChunkWriter extends Writer {
+        private final Consumer<String> consumer;
+        private final StringBuilder buffer;
+        private final int chunkSize;
+
+        ChunkWriter(Consumer<String> consumer, int chunkSize) {
+            this.consumer = consumer;
+            this.chunkSize = Math.max(1, chunkSize);
+            this.buffer = new StringBuilder(this.chunkSize);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            while (len > 0) {
+                int n = Math.min(len, chunkSize - buffer.length());
+                buffer.append(cbuf, off, n);
+                off += n;
+                len -= n;
+                if (buffer.length() >= chunkSize) {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (buffer.length() > 0) {
+                consumer.accept(buffer.toString());
+                buffer.setLength(0);
+            }
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+    }
+
+    /**
+     * Gets the parsed template of a knowledge, parsing it only when the knowledge is new
+     * or its data changed.
+     *
+     * @param name the knowledge name
+     * @param data the template source
+     * @return the parsed template
+     */
+    private Template getTemplate(String name, String data) {
+        CompiledTemplate compiled = templates.get(name);
+        if (compiled != null && compiled.source.equals(data)) {
+            return compiled.template;
+        }
+        synchronized (templates) {
+            compiled = templates.get(name);
+            if (compiled == null || !compiled.source.equals(data)) {
+                StringResourceRepository repository = StringResourceLoader.getRepository(SymphonyKernelAutoConfiguration.VELOCITY_REPOSITORY);
+                repository.putStringResource(name, data);
+                try {
+                    compiled = new CompiledTemplate(data, velocityEngine.getTemplate(name));
+                } finally {
+                    repository.removeStringResource(name);
+                }
+                templates.put(name, compiled);
+                logger.info("Parsed velocity template {}", name);
+            }
+            return compiled.template;
+        }
+    }
+
     /**
      * Converts a JsonNode to an appropriate Java object for Velocity context.
      * <p>
@@ -0,0 +1,234 @@
+package org.symphonykernel.transformer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Streams the sheets of an XLSX workbook into the compressed row format produced by
+ * {@link JsonTransformer#compress(com.fasterxml.jackson.databind.JsonNode)}.
+ * <p>
+ * The workbook is read with the SAX event model ({@link XSSFReader}), so only the
+ * current row and the chunk being built are held in memory. The first non-empty row of
+ * each sheet is used as the schema and the following rows are emitted as
+ * {@code |}-separated values. Output is pushed to the sink in chunks of at most
+ * {@code maxChunkLength} characters, each repeating the sheet schema so it can be
+ * processed on its own. Reading stops once {@code maxRows} data rows were emitted;
+ * columns beyond {@code maxColumns} are dropped.
+ * </p>
+ */
+public class ExcelStreamTransformer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExcelStreamTransformer.class);
+    private static final Pattern NUMBER = Pattern.compile("-?[\\d,]*\\.?\\d+%?");
+
+    private final int maxRows;
+    private final int maxColumns;
+    private final int maxChunkLength;
+    private int rowCount;
+    private boolean truncated;
+
+    /**
+     * Signals that the row cap was reached so the SAX parser can stop early.
+     */
+    private static class LimitReachedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Creates a transformer with the given limits.
+     *
+     * @param maxRows        the maximum number of data rows emitted across all sheets
+     * @param maxColumns     the maximum number of columns kept per row
+     * @param maxChunkLength the maximum length of each emitted chunk
+     */
+    public ExcelStreamTransformer(int maxRows, int maxColumns, int maxChunkLength) {
+        this.maxRows = maxRows;
+        this.maxColumns = maxColumns;
+        this.maxChunkLength = maxChunkLength;
+    }
+
+    /**
+     * Streams every sheet of the workbook to the sink.
+     *
+     * @param pkg  the opened workbook package
+     * @param sink receives each chunk as soon as it is complete
+     * @return the number of data rows emitted
+     * @throws IOException if the package is not a readable workbook
+     */
+    public int transform(OPCPackage pkg, Consumer<String> sink) throws IOException {
+        rowCount = 0;
+        truncated = false;
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+            DataFormatter formatter = new DataFormatter();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext() && !truncated) {
+                try (InputStream in = sheets.next()) {
+                    SheetWriter writer = new SheetWriter(sheets.getSheetName(), sink);
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, writer, formatter, false));
+                    try {
+                        parser.parse(new InputSource(in));
+                    } catch (LimitReachedException e) {
+                        truncated = true;
+                    }
+                    writer.flush();
+                }
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Unable to read workbook: " + e.getMessage(), e);
+        }
+        if (truncated) {
+            logger.warn("Workbook truncated after {} rows", rowCount);
+        }
+        return rowCount;
+    }
+
+    /**
+     * Checks whether the last transformation stopped at the row cap.
+     *
+     * @return true if rows were dropped
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Collects the rows of one sheet and pushes them to the sink chunk by chunk.
+     */
+    private class SheetWriter implements SheetContentsHandler {
+        private final String sheetName;
+        private final Consumer<String> sink;
+        private final List<String> current = new ArrayList<>();
+        private final StringBuilder chunk = new StringBuilder();
+        private List<String> header;
+        private String schema;
+        private int column;
+
+        SheetWriter(String sheetName, Consumer<String> sink) {
+            this.sheetName = sheetName;
+            this.sink = sink;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            current.clear();
+            column = 0;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = cellReference != null ? new CellReference(cellReference).getCol() : column;
+            column = col + 1;
+            if (col >= maxColumns) {
+                return;
+            }
+            while (current.size() < col) {
+                current.add("");
+            }
+            current.add(clean(formattedValue));
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (current.stream().allMatch(String::isEmpty)) {
+                return;
+            }
+            if (header == null) {
+                header = new ArrayList<>(current);
+                return;
+            }
+            if (schema == null) {
+                schema = buildSchema();
+            }
+            while (current.size() < header.size()) {
+                current.add("");
+            }
+            String row = String.join("|", current);
+            if (chunk.length() > 0 && schema.length() + chunk.length() + row.length() + 1 > maxChunkLength) {
+                flush();
+            }
+            if (chunk.length() > 0) {
+                chunk.append('\n');
+            }
+            chunk.append(row);
+            if (++rowCount >= maxRows) {
+                throw new LimitReachedException();
+            }
+        }
+
+        void flush() {
+            if (chunk.length() == 0) {
+                if (header != null && schema == null) {
+                    // A sheet with a single row: emit it as data with a positional schema
+                    current.clear();
+                    current.addAll(header);
+                    header = positionalHeader(header.size());
+                    schema = buildSchema();
+                    chunk.append(String.join("|", current));
+                } else {
+                    return;
+                }
+            }
+            sink.accept(schema + chunk);
+            chunk.setLength(0);
+        }
+
+        private String buildSchema() {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).isEmpty() ? CellReference.convertNumToColString(i) : header.get(i).replace(':', ' ');
+                String value = i < current.size() ? current.get(i) : "";
+                fields.add(name + ":" + typeOf(value));
+            }
+            return "SHEET: " + sheetName + "\nSCHEMA:\n[" + String.join("|", fields) + "]\n\nDATA:\n";
+        }
+    }
+
+    private static List<String> positionalHeader(int size) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            names.add(CellReference.convertNumToColString(i));
+        }
+        return names;
+    }
+
+    private static String typeOf(String value) {
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+            return "boolean";
+        }
+        return NUMBER.matcher(value).matches() ? "number" : "string";
+    }
+
+    private static String clean(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace('|', '/').replace('\r', ' ').replace('\n', ' ').trim();
+    }
+}
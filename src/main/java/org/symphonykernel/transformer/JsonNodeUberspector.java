@@ -0,0 +1,132 @@
+package org.symphonykernel.transformer;
+
+import java.lang.reflect.Method;
+
+import org.apache.velocity.util.introspection.Info;
+import org.apache.velocity.util.introspection.UberspectImpl;
+import org.apache.velocity.util.introspection.VelMethod;
+import org.apache.velocity.util.introspection.VelPropertyGet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Velocity uberspector with direct access to Jackson {@link JsonNode} trees.
+ * <p>
+ * Templates navigate resolved values as {@code $order.customer.name} or {@code $items[0]}.
+ * The default uberspector resolves these by reflection, probing getter and
+ * {@code get(String)} methods; this one calls {@code JsonNode.get} directly wherever the
+ * default lookup would have ended up there. Getters keep precedence over fields of the same
+ * name (e.g. {@code $node.nodeType}), negative indices return null as before, and the same
+ * child nodes are returned, so templates render exactly as before.
+ * </p>
+ */
+public class JsonNodeUberspector extends UberspectImpl {
+
+    private static final Method GET_FIELD;
+    private static final Method GET_INDEX;
+
+    static {
+        try {
+            GET_FIELD = JsonNode.class.getMethod("get", String.class);
+            GET_INDEX = JsonNode.class.getMethod("get", int.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public VelPropertyGet getPropertyGet(Object obj, String identifier, Info i) {
+        if (obj instanceof ObjectNode || obj instanceof ArrayNode) {
+            return new NodePropertyGet(identifier, super.getPropertyGet(obj, identifier, i));
+        }
+        return super.getPropertyGet(obj, identifier, i);
+    }
+
+    @Override
+    public VelMethod getMethod(Object obj, String methodName, Object[] args, Info i) {
+        if (obj instanceof JsonNode && "get".equals(methodName) && args != null && args.length == 1) {
+            if (args[0] instanceof Number) {
+                return new NodeGetMethod(GET_INDEX);
+            }
+            if (args[0] instanceof String) {
+                return new NodeGetMethod(GET_FIELD);
+            }
+        }
+        return super.getMethod(obj, methodName, args, i);
+    }
+
+    /**
+     * Reads a field with {@code JsonNode.get(String)} when that is what the default lookup
+     * resolved to; getters found by the default lookup are used as they are.
+     */
+    private static class NodePropertyGet implements VelPropertyGet {
+        private final String identifier;
+        private final VelPropertyGet fallback;
+
+        NodePropertyGet(String identifier, VelPropertyGet fallback) {
+            this.identifier = identifier;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public Object invoke(Object o) throws Exception {
+            if (fallback != null && !"get".equals(fallback.getMethodName())) {
+                return fallback.invoke(o);
+            }
+            return ((JsonNode) o).get(identifier);
+        }
+
+        @Override
+        public boolean isCacheable() {
+            return true;
+        }
+
+        @Override
+        public String getMethodName() {
+            return fallback != null ? fallback.getMethodName() : "get";
+        }
+    }
+
+    /**
+     * Calls {@code JsonNode.get(String)} or {@code JsonNode.get(int)} without reflection.
+     */
+    private static class NodeGetMethod implements VelMethod {
+        private final Method method;
+
+        NodeGetMethod(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public Object invoke(Object o, Object[] params) throws Exception {
+            JsonNode node = (JsonNode) o;
+            Object key = params[0];
+            if (key instanceof Number number) {
+                return node.get(number.intValue());
+            }
+            return node.get((String) key);
+        }
+
+        @Override
+        public boolean isCacheable() {
+            return true;
+        }
+
+        @Override
+        public String getMethodName() {
+            return method.getName();
+        }
+
+        @Override
+        public Class<?> getReturnType() {
+            return JsonNode.class;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+    }
+}
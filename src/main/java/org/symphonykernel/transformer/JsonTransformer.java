@@ -5,6 +5,7 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.ToIntFunction;
 
 import org.apache.commons.text.similarity.LevenshteinDistance;
 import org.slf4j.Logger;
@@ -734,7 +735,29 @@ public class JsonTransformer {
                 array.add(item);
         }
     }
+    /**
+     * Splits a JSON array into serialized arrays of at most {@code maxLength} characters.
+     *
+     * @param jsonArrayString the JSON array
+     * @param maxLength       the maximum length of a chunk in characters
+     * @return the chunks
+     * @throws Exception if the input is not a JSON array
+     */
      public  List<String> chunkJsonArray( String jsonArrayString,  int maxLength) throws Exception {
+        return chunkJsonArray(jsonArrayString, maxLength, String::length);
+    }
+
+    /**
+     * Splits a JSON array into serialized arrays whose size, as reported by {@code measure},
+     * is at most {@code maxSize}. An item larger than {@code maxSize} gets a chunk of its own.
+     *
+     * @param jsonArrayString the JSON array
+     * @param maxSize         the maximum size of a chunk
+     * @param measure         measures serialized JSON, e.g. in characters or tokens
+     * @return the chunks
+     * @throws Exception if the input is not a JSON array
+     */
+    public List<String> chunkJsonArray(String jsonArrayString, int maxSize, ToIntFunction<String> measure) throws Exception {
 
         List<String> chunks = new ArrayList<>();
         if(jsonArrayString==null || jsonArrayString.isBlank())
@@ -751,16 +774,21 @@ public class JsonTransformer {
         logger.info("Starting chunking JSON array of size: {}", array.size());
 
         ArrayNode currentChunk = mapper.createArrayNode();
+        // Size of the chunk as serialized: brackets plus each item and its separator
+        int bracketsSize = measure.applyAsInt("[]");
+        int separatorSize = measure.applyAsInt(",");
+        int currentChunkSize = bracketsSize;
 
         for (JsonNode item : array) {
-            int itemLength = serializedLength(item);
+            int itemSize = measure.applyAsInt(serialize(item));
 
-            // If a single item is larger than maxLength, put it in its own chunk
-            if (itemLength > maxLength) {
+            // If a single item is larger than maxSize, put it in its own chunk
+            if (itemSize + bracketsSize > maxSize) {
                 if (!currentChunk.isEmpty()) {
                     chunks.add(serialize(currentChunk));
                     logger.info("Created chunk of {} items", currentChunk.size());
                     currentChunk.removeAll();
+                    currentChunkSize = bracketsSize;
                 }
                 ArrayNode oversizedChunk = mapper.createArrayNode();
                 oversizedChunk.add(item);
@@ -769,20 +797,17 @@ public class JsonTransformer {
                 continue;
             }
 
-            // Try to add to current chunk
-            currentChunk.add(item);
-            int currentChunkLength = serializedLength(currentChunk);
+            int projectedSize = currentChunkSize + itemSize + (currentChunk.isEmpty() ? 0 : separatorSize);
 
-            if (currentChunkLength > maxLength) {
+            if (projectedSize > maxSize && !currentChunk.isEmpty()) {
                 // Item does not fit in current chunk, move it to a new one
-                currentChunk.remove(currentChunk.size() - 1);
-                if (!currentChunk.isEmpty()) {
-                    chunks.add(serialize(currentChunk));
-                    logger.info("Created chunk of {} items", currentChunk.size());
-                }
+                chunks.add(serialize(currentChunk));
+                logger.info("Created chunk of {} items", currentChunk.size());
                 currentChunk.removeAll();
-                currentChunk.add(item);
+                projectedSize = bracketsSize + itemSize;
             }
+            currentChunk.add(item);
+            currentChunkSize = projectedSize;
         }
 
         if (!currentChunk.isEmpty()) {
@@ -793,16 +818,35 @@ public class JsonTransformer {
         return chunks;
     }
 
-    private int serializedLength(JsonNode node) throws Exception {
-        return serialize(node).length();
-    }
-
     private String serialize(JsonNode node) throws Exception {
         return mapper.writeValueAsString(node);
     }
 
 
+    /**
+     * Splits compressed JSON into its schema followed by data chunks of at most
+     * {@code maxLength} characters.
+     *
+     * @param compressedJson the compressed JSON
+     * @param maxLength      the maximum length of a chunk in characters
+     * @return the schema followed by the data chunks
+     * @throws Exception if the input cannot be split
+     */
     public List<String> chunkCompressedJsonArray(String compressedJson, int maxLength) throws Exception {
+        return chunkCompressedJsonArray(compressedJson, maxLength, String::length);
+    }
+
+    /**
+     * Splits compressed JSON into its schema followed by data chunks whose size, as
+     * reported by {@code measure}, is at most {@code maxSize}.
+     *
+     * @param compressedJson the compressed JSON
+     * @param maxSize        the maximum size of a chunk
+     * @param measure        measures text, e.g. in characters or tokens
+     * @return the schema followed by the data chunks
+     * @throws Exception if the input cannot be split
+     */
+    public List<String> chunkCompressedJsonArray(String compressedJson, int maxSize, ToIntFunction<String> measure) throws Exception {
         List<String> chunks = new ArrayList<>();
         if (compressedJson == null || compressedJson.isBlank()) {
             return chunks;
@@ -813,12 +857,15 @@ public class JsonTransformer {
 
         // If format doesn't match expected compressed pattern, fallback: no special handling
         if (idx < 0) {
-            if (compressedJson.length() <= maxLength) {
+            int size = measure.applyAsInt(compressedJson);
+            if (size <= maxSize) {
                 chunks.add(compressedJson);
             } else {
+                // Split evenly into pieces of roughly maxSize
+                int span = Math.max(1, (int) ((long) compressedJson.length() * maxSize / size));
                 int start = 0;
                 while (start < compressedJson.length()) {
-                    int end = Math.min(start + maxLength, compressedJson.length());
+                    int end = Math.min(start + span, compressedJson.length());
                     chunks.add(compressedJson.substring(start, end));
                     start = end;
                 }
@@ -829,7 +876,7 @@ public class JsonTransformer {
         // First item: schema part (e.g. "SCHEMA:\n[USAGE:string|CODE:string|...}")
         String schemaPart = compressedJson.substring(0, idx);
         chunks.add(schemaPart);
-        int schemaLength = schemaPart.length() + delimiter.length();
+        int schemaLength = measure.applyAsInt(schemaPart + delimiter);
 
         // Data part: rows separated by newline
         String dataPart = compressedJson.substring(idx + delimiter.length());
@@ -840,12 +887,13 @@ public class JsonTransformer {
         String[] rows = dataPart.split("\n");
         StringBuilder currentChunk = new StringBuilder();
         int currentLength = 0;
+        int rowLength = 0;
 
         for (String row : rows) {
             boolean skipRow = row.isEmpty();
             if (!skipRow) {
-                int rowLength = row.length();
-                if (rowLength > maxLength) {
+                rowLength = measure.applyAsInt(row);
+                if (rowLength > maxSize) {
                     if (currentLength > 0) {
                         chunks.add(currentChunk.toString());
                         currentChunk.setLength(0);
@@ -860,10 +908,10 @@ public class JsonTransformer {
             }
 
             int projectedLength = currentLength == 0
-                    ? row.length()
-                    : currentLength + 1 + row.length() + schemaLength; // +1 for '\n'
+                    ? rowLength
+                    : currentLength + 1 + rowLength + schemaLength; // +1 for '\n'
 
-            if (projectedLength > maxLength) {
+            if (projectedLength > maxSize) {
                 // Flush current chunk
                 if (currentLength > 0) {
                     chunks.add(currentChunk.toString());
@@ -876,7 +924,7 @@ public class JsonTransformer {
                 currentChunk.append('\n');
             }
             currentChunk.append(row);
-            currentLength = currentChunk.length();
+            currentLength += (currentLength > 0 ? 1 : 0) + rowLength;
         }
 
         if (currentLength > 0) {
@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
+import org.symphonykernel.config.Constants;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -43,6 +44,26 @@ public class TemplateResolver {
         Matcher matcher = PLACEHOLDER_PATTERN.matcher(text);
         return matcher.find();
     }
+    /**
+     * Marks the end of the stable part of a prompt template, right before its first
+     * placeholder that is resolved per request, or at its end if there is none.
+     * Environment placeholders do not change between requests and stay in the stable part.
+     *
+     * @param template the prompt template
+     * @return the template with {@link Constants#PROMPT_CACHE_BREAK} inserted
+     */
+    public static String markCacheBreak(String template) {
+        if (template == null || template.contains(Constants.PROMPT_CACHE_BREAK)) {
+            return template;
+        }
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(template);
+        while (matcher.find()) {
+            if (!matcher.group(1).trim().toLowerCase().startsWith("env.")) {
+                return template.substring(0, matcher.start()) + Constants.PROMPT_CACHE_BREAK + template.substring(matcher.start());
+            }
+        }
+        return template + Constants.PROMPT_CACHE_BREAK;
+    }
     public String resolvePlaceholders(String text)
     {
         return  resolvePlaceholders(text, null);
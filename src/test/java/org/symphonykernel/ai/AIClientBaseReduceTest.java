@@ -0,0 +1,128 @@
+package org.symphonykernel.ai;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.symphonykernel.LLMRequest;
+import org.symphonykernel.config.AzureOpenAIConnectionProperties;
+
+class AIClientBaseReduceTest {
+
+    private static final String SUMMARY = "SSSSS";
+
+    static class TestClient extends AIClientBase {
+        private final Function<LLMRequest, String> llm;
+
+        TestClient(int maxInputLength, Function<LLMRequest, String> llm) {
+            super(properties(maxInputLength));
+            this.llm = llm;
+        }
+
+        private static AzureOpenAIConnectionProperties properties(int maxInputLength) {
+            AzureOpenAIConnectionProperties properties = new AzureOpenAIConnectionProperties();
+            properties.setMaxInputLength(maxInputLength);
+            properties.setMaxParallel(2);
+            return properties;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <R> R execute(LLMRequest request) {
+            return (R) llm.apply(request);
+        }
+    }
+
+    private static String text(char c, int length) {
+        return String.valueOf(c).repeat(length);
+    }
+
+    @Test
+    void groupNeverPairsResponsesOverBudget() {
+        List<String> responses = List.of(text('x', 60), text('y', 60), text('c', 10), text('d', 10));
+
+        List<List<String>> groups = AIClientBase.group(responses, 50, false, String::length);
+
+        assertThat(groups).containsExactly(
+                List.of(text('x', 60)),
+                List.of(text('y', 60)),
+                List.of(text('c', 10), text('d', 10)));
+    }
+
+    @Test
+    void groupPacksConsecutiveResponsesWithinBudget() {
+        List<String> responses = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            responses.add(text((char) ('a' + i), 20));
+        }
+
+        List<List<String>> groups = AIClientBase.group(responses, 100, true, String::length);
+
+        assertThat(groups).hasSizeGreaterThan(1);
+        assertThat(groups.stream().flatMap(List::stream).toList()).isEqualTo(responses);
+        for (List<String> group : groups) {
+            int size = group.stream().mapToInt(response -> response.length() + 10).sum();
+            assertThat(group.size() == 1 || size <= 100).isTrue();
+        }
+    }
+
+    @Test
+    void reduceToFitShrinksResponsesUntilTheyFit() {
+        TestClient client = new TestClient(200, request -> SUMMARY);
+        List<String> responses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            responses.add(text((char) ('a' + i), 20));
+        }
+
+        List<String> reduced = client.reduceToFit("final", "group", responses, false, null, null);
+
+        int size = "final".length() + String.join(System.lineSeparator(), reduced).length() + reduced.size();
+        assertThat(size).isLessThanOrEqualTo(200);
+        assertThat(reduced).contains(SUMMARY);
+    }
+
+    @Test
+    void reduceToFitKeepsResponsesOfFailedGroup() {
+        TestClient client = new TestClient(120, request -> {
+            if (request.getUserPrompt().contains("boom")) {
+                throw new IllegalStateException("reduce failed");
+            }
+            return SUMMARY;
+        });
+        String first = "boom" + text('a', 26);
+        String second = "boom" + text('b', 26);
+        String third = text('c', 30);
+        List<String> responses = List.of(first, second, third, text('d', 30), text('e', 30), text('f', 30));
+
+        List<String> reduced = client.reduceToFit("F", "G", responses, false, null, null);
+
+        assertThat(reduced).containsExactly(first, second, third, SUMMARY);
+    }
+
+    @Test
+    void reduceToFitFailsWhenResponsesCannotBeCombined() {
+        TestClient client = new TestClient(50, request -> SUMMARY);
+        List<String> responses = List.of(text('x', 40), text('y', 40));
+
+        assertThatThrownBy(() -> client.reduceToFit("F", "G", responses, false, null, null))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void reduceToFitFailsWhenEveryReduceFails() {
+        TestClient client = new TestClient(100, request -> {
+            throw new IllegalStateException("reduce failed");
+        });
+        List<String> responses = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            responses.add(text((char) ('a' + i), 20));
+        }
+
+        assertThatThrownBy(() -> client.reduceToFit("F", "G", responses, false, null, null))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,82 @@
+package org.symphonykernel.ai;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.symphonykernel.Priority;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static AdaptiveConcurrencyLimiter limiter(int limit) {
+        return new AdaptiveConcurrencyLimiter("test", limit, 1, limit, 0.5, 0.9, 4.0, 5000);
+    }
+
+    @Test
+    void throttledOnlyOnHttpStatus() {
+        assertThat(AdaptiveConcurrencyLimiter.isThrottled(new TransientAiException("429 - rate limit reached"))).isTrue();
+        assertThat(AdaptiveConcurrencyLimiter.isThrottled(new RuntimeException("call failed", new NonTransientAiException("429 - slow down")))).isTrue();
+        assertThat(AdaptiveConcurrencyLimiter.isThrottled(new IllegalStateException("Timed out waiting for quota (4290 tokens)"))).isFalse();
+        assertThat(AdaptiveConcurrencyLimiter.isThrottled(new TransientAiException("500 - 429 retries"))).isFalse();
+    }
+
+    @Test
+    void blockingSuccessDoesNotLowerTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4);
+        limiter.acquire(Priority.INTERACTIVE, 1000).success(10);
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(Priority.INTERACTIVE, 1000).success();
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void blockingSuccessRaisesTheLimitByOneOverLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 1, 8, 0.5, 0.9, 4.0, 5000);
+        int[] limits = new int[4];
+        for (int i = 0; i < limits.length; i++) {
+            limiter.acquire(Priority.INTERACTIVE, 1000).success();
+            limits[i] = limiter.getLimit();
+        }
+
+        // 1 -> 2 -> 2.5 -> 2.9 -> 3.24
+        assertThat(limits).containsExactly(2, 2, 2, 3);
+    }
+
+    @Test
+    void throttledBurstDecreasesOnce() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 1, 8, 0.5, 0.9, 4.0, 5000);
+        TransientAiException throttled = new TransientAiException("429 - rate limit reached");
+        AdaptiveConcurrencyLimiter.Permit[] burst = new AdaptiveConcurrencyLimiter.Permit[4];
+        for (int i = 0; i < burst.length; i++) {
+            burst[i] = limiter.acquire(Priority.INTERACTIVE, 1000);
+        }
+        for (AdaptiveConcurrencyLimiter.Permit permit : burst) {
+            permit.failure(throttled);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        limiter.acquire(Priority.INTERACTIVE, 1000).failure(throttled);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void suspendedPermitFreesItsSlot() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1);
+        AdaptiveConcurrencyLimiter.Permit caller = limiter.acquire(Priority.INTERACTIVE, 1000);
+
+        caller.suspend();
+        AdaptiveConcurrencyLimiter.Permit tool = limiter.acquire(Priority.INTERACTIVE, 100);
+        tool.success();
+        caller.resume();
+
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        caller.success();
+        assertThat(limiter.getInFlight()).isZero();
+    }
+}
@@ -0,0 +1,91 @@
+package org.symphonykernel.steps;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class FileStepTest {
+
+    private static String pages(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            text.append("Page ").append(i).append(":\n").append("x".repeat(40)).append("\n\n");
+        }
+        return text.toString();
+    }
+
+    @Test
+    void splitSectionsBreaksOnBlankLinesWithinTheLength() {
+        String text = pages(10);
+        List<String> sections = new ArrayList<>();
+
+        FileStep.Sections result = FileStep.splitSections(text, 120, 24, sections::add);
+
+        assertThat(result.count).isEqualTo(sections.size());
+        assertThat(result.isTruncated()).isFalse();
+        assertThat(sections).hasSize(5);
+        assertThat(sections).allSatisfy(section -> {
+            assertThat(section.length()).isLessThanOrEqualTo(120);
+            assertThat(section).startsWith("Page ").endsWith("\n\n");
+        });
+        assertThat(String.join("", sections)).isEqualTo(text);
+    }
+
+    @Test
+    void splitSectionsHardSplitsLongParagraphs() {
+        String text = "y".repeat(250);
+        List<String> sections = new ArrayList<>();
+
+        FileStep.splitSections(text, 100, 24, sections::add);
+
+        assertThat(sections).containsExactly("y".repeat(100), "y".repeat(100), "y".repeat(50));
+    }
+
+    @Test
+    void splitSectionsReportsTruncationBeyondTheBudget() {
+        String text = pages(10);
+        List<String> sections = new ArrayList<>();
+
+        FileStep.Sections result = FileStep.splitSections(text, 60, 3, sections::add);
+
+        assertThat(sections).hasSize(3);
+        assertThat(result.count).isEqualTo(3);
+        assertThat(result.isTruncated()).isTrue();
+        assertThat(result.processedChars).isEqualTo(String.join("", sections).length());
+        assertThat(result.totalChars).isEqualTo(text.length());
+    }
+
+    @Test
+    void splitSectionsHasNoLimitWithoutBudget() {
+        String text = pages(100);
+        List<String> sections = new ArrayList<>();
+
+        FileStep.Sections result = FileStep.splitSections(text, 60, FileStep.UNLIMITED, sections::add);
+
+        assertThat(sections).hasSize(100);
+        assertThat(result.isTruncated()).isFalse();
+        assertThat(String.join("", sections)).isEqualTo(text);
+        assertThat(FileStep.splitSections(text, 60, -1, section -> { }).count).isEqualTo(100);
+    }
+
+    @Test
+    void splitSectionsRejectsNonPositiveLength() {
+        assertThatThrownBy(() -> FileStep.splitSections("text", 0, 24, section -> { }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void splitSectionsEmitsNothingForEmptyText() {
+        List<String> sections = new ArrayList<>();
+
+        FileStep.Sections result = FileStep.splitSections("", 100, 24, sections::add);
+
+        assertThat(sections).isEmpty();
+        assertThat(result.count).isZero();
+        assertThat(result.isTruncated()).isFalse();
+    }
+}
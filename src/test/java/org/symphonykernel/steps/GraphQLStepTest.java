@@ -0,0 +1,107 @@
+package org.symphonykernel.steps;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+class GraphQLStepTest {
+
+    @Test
+    void queriesAreIdempotent() {
+        assertThat(GraphQLStep.isQueryDocument("{ user { id } }")).isTrue();
+        assertThat(GraphQLStep.isQueryDocument("query User($id: ID!) { user(id: $id) { id } }")).isTrue();
+        assertThat(GraphQLStep.isQueryDocument("query($filter: Filter = {name: \"x\"}) { users(filter: $filter) { id } }")).isTrue();
+    }
+
+    @Test
+    void commentsAndFragmentsAreSkipped() {
+        String document = """
+                # mutation is only mentioned here
+                fragment Fields on User { id name }
+                query User { user { ...Fields } }
+                """;
+
+        assertThat(GraphQLStep.isQueryDocument(document)).isTrue();
+    }
+
+    @Test
+    void mutationsAndUnreadableDocumentsAreNotIdempotent() {
+        assertThat(GraphQLStep.isQueryDocument("  # load\n mutation Save { save { id } }")).isFalse();
+        assertThat(GraphQLStep.isQueryDocument("fragment F on User { id } mutation { save { ...F } }")).isFalse();
+        assertThat(GraphQLStep.isQueryDocument("query A { a } mutation B { b }")).isFalse();
+        assertThat(GraphQLStep.isQueryDocument("subscription { events { id } }")).isFalse();
+        assertThat(GraphQLStep.isQueryDocument("query { user { id }")).isFalse();
+        assertThat(GraphQLStep.isQueryDocument("fragment F on User { id }")).isFalse();
+        assertThat(GraphQLStep.isQueryDocument(null)).isFalse();
+    }
+
+    @Test
+    void aliasQueryAliasesFieldsAndRenamesVariables() {
+        String merged = GraphQLStep.aliasQuery("query User($id: ID!) { user(id: $id) { id name } }", 2);
+
+        assertThat(merged).startsWith("query User($id_b0: ID!, $id_b1: ID!) {");
+        assertThat(merged).contains("b0_user: user(id: $id_b0) { id name }");
+        assertThat(merged).contains("b1_user: user(id: $id_b1) { id name }");
+    }
+
+    @Test
+    void aliasQueryKeepsExistingAliasesStringsAndDropsHeaderComments() {
+        String merged = GraphQLStep.aliasQuery("# users\nquery Q($id: ID!) # (note\n{ u: user(id: $id) { id } search(text: \"$5 #1\") { id } }", 2);
+
+        assertThat(merged).startsWith("query Q($id_b0: ID!, $id_b1: ID!) {");
+        assertThat(merged).contains("b0_u: user(id: $id_b0)");
+        assertThat(merged).contains("b1_search: search(text: \"$5 #1\")");
+    }
+
+    @Test
+    void aliasQueryKeepsFragmentsOnceWithoutVariables() {
+        String merged = GraphQLStep.aliasQuery("{ user { ...F } }\nfragment F on User { id }", 2);
+
+        assertThat(merged).contains("b0_user: user { ...F }").contains("b1_user: user { ...F }");
+        assertThat(merged.split("fragment F on User", -1)).hasSize(2);
+    }
+
+    @Test
+    void aliasQueryCopiesFragmentsThatUseVariables() {
+        String merged = GraphQLStep.aliasQuery(
+                "query($n: Int) { user { ...F } }\nfragment F on User { friends(first: $n) { id } }", 2);
+
+        assertThat(merged).contains("b0_user: user { ...F_b0 }").contains("b1_user: user { ...F_b1 }");
+        assertThat(merged).contains("fragment F_b0 on User { friends(first: $n_b0) { id } }");
+        assertThat(merged).contains("fragment F_b1 on User { friends(first: $n_b1) { id } }");
+    }
+
+    @Test
+    void aliasQueryRejectsDocumentsItCannotMerge() {
+        assertThatThrownBy(() -> GraphQLStep.aliasQuery("{ ...F }\nfragment F on Query { a }", 2))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> GraphQLStep.aliasQuery("{ a { b }", 2))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> GraphQLStep.aliasQuery("query A { a } query B { b }", 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void splitErrorsMapsPathsBackToEachCopy() throws Exception {
+        JsonNode errors = new ObjectMapper().readTree("""
+                [
+                  {"message": "not found", "path": ["b1_user", "name"]},
+                  {"message": "invalid document"}
+                ]
+                """);
+
+        List<ArrayNode> split = GraphQLStep.splitErrors(errors, 2);
+
+        assertThat(split.get(0)).hasSize(1);
+        assertThat(split.get(1)).hasSize(2);
+        assertThat(split.get(1).get(0).path("path").get(0).asText()).isEqualTo("user");
+        assertThat(split.get(0).get(0).path("message").asText()).isEqualTo("invalid document");
+    }
+}
@@ -0,0 +1,132 @@
+package org.symphonykernel.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.symphonykernel.transformer.JsonTransformer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class JsonTransformerChunkTest {
+
+    private static final String DELIMITER = "\n\nDATA:\n";
+
+    private ObjectMapper mapper;
+    private JsonTransformer processor;
+
+    @BeforeEach
+    void setUp() {
+        mapper = new ObjectMapper();
+        processor = new JsonTransformer();
+    }
+
+    private static String array(int items) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < items; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"item").append(i).append("\"}");
+        }
+        return json.append("]").toString();
+    }
+
+    private List<JsonNode> items(List<String> chunks) throws Exception {
+        List<JsonNode> items = new ArrayList<>();
+        for (String chunk : chunks) {
+            JsonNode node = mapper.readTree(chunk);
+            assertThat(node.isArray()).isTrue();
+            node.forEach(items::add);
+        }
+        return items;
+    }
+
+    @Test
+    void chunkJsonArrayKeepsEveryItemInOrderWithinTheLimit() throws Exception {
+        String json = array(20);
+
+        List<String> chunks = processor.chunkJsonArray(json, 100);
+
+        assertThat(chunks).hasSizeGreaterThan(1);
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.length()).isLessThanOrEqualTo(100));
+        assertThat(items(chunks)).containsExactlyElementsOf(items(List.of(json)));
+    }
+
+    @Test
+    void chunkJsonArrayPutsOversizedItemInItsOwnChunk() throws Exception {
+        String large = "x".repeat(200);
+        String json = "[{\"id\":1},{\"text\":\"" + large + "\"},{\"id\":2}]";
+
+        List<String> chunks = processor.chunkJsonArray(json, 50);
+
+        assertThat(chunks).containsExactly("[{\"id\":1}]", "[{\"text\":\"" + large + "\"}]", "[{\"id\":2}]");
+    }
+
+    @Test
+    void chunkJsonArrayMeasuresWithTheGivenFunction() throws Exception {
+        String json = array(20);
+        ToIntFunction<String> tokens = text -> (text.length() + 3) / 4;
+
+        List<String> chunks = processor.chunkJsonArray(json, 25, tokens);
+
+        assertThat(chunks).hasSizeGreaterThan(1);
+        assertThat(chunks).allSatisfy(chunk -> assertThat(tokens.applyAsInt(chunk)).isLessThanOrEqualTo(25));
+        assertThat(items(chunks)).containsExactlyElementsOf(items(List.of(json)));
+    }
+
+    @Test
+    void chunkJsonArrayReturnsNothingForBlankInput() throws Exception {
+        assertThat(processor.chunkJsonArray(null, 100)).isEmpty();
+        assertThat(processor.chunkJsonArray(" ", 100)).isEmpty();
+    }
+
+    @Test
+    void chunkJsonArrayRejectsObjects() {
+        assertThatThrownBy(() -> processor.chunkJsonArray("{\"id\":1}", 100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void chunkCompressedJsonArrayStartsWithTheSchemaAndKeepsEveryRow() throws Exception {
+        String schema = "SCHEMA:\n[ID:number|NAME:string]";
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            rows.add(i + "|name" + i);
+        }
+        String compressed = schema + DELIMITER + String.join("\n", rows);
+
+        List<String> chunks = processor.chunkCompressedJsonArray(compressed, 80);
+
+        assertThat(chunks.get(0)).isEqualTo(schema);
+        List<String> data = chunks.subList(1, chunks.size());
+        assertThat(data).hasSizeGreaterThan(1);
+        assertThat(data).allSatisfy(chunk -> assertThat(chunk.length()).isLessThanOrEqualTo(80));
+        assertThat(String.join("\n", data).split("\n")).containsExactlyElementsOf(rows);
+    }
+
+    @Test
+    void chunkCompressedJsonArrayPutsOversizedRowInItsOwnChunk() throws Exception {
+        String large = "9|" + "x".repeat(100);
+        String compressed = "SCHEMA:\n[ID:number|TEXT:string]" + DELIMITER + "1|a\n" + large + "\n2|b";
+
+        List<String> chunks = processor.chunkCompressedJsonArray(compressed, 60);
+
+        assertThat(chunks).containsExactly("SCHEMA:\n[ID:number|TEXT:string]", "1|a", large, "2|b");
+    }
+
+    @Test
+    void chunkCompressedJsonArraySplitsTextWithoutSchema() throws Exception {
+        String text = "abcdefghij".repeat(25);
+
+        List<String> chunks = processor.chunkCompressedJsonArray(text, 100);
+
+        assertThat(chunks).hasSizeGreaterThan(1);
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.length()).isLessThanOrEqualTo(100));
+        assertThat(String.join("", chunks)).isEqualTo(text);
+        assertThat(processor.chunkCompressedJsonArray("short", 100)).containsExactly("short");
+    }
+}